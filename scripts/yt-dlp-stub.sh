@@ -0,0 +1,43 @@
+#!/bin/sh
+# Offline stand-in for yt-dlp, for exercising YouTube playlist ingestion:
+#   FLICKWAV_YTDLP=$PWD/scripts/yt-dlp-stub.sh mvn clean javafx:run
+#
+# STUB_ENTRIES      number of playlist entries to list (default 500)
+# STUB_MEDIA        stream URL every entry resolves to, e.g. file:///path/to/clip.mp4
+# STUB_DELAY        seconds each resolve takes (default 1)
+# STUB_FAIL_EVERY   make every Nth entry fail to resolve (default 0, never)
+# STUB_UNTITLED_EVERY  list every Nth entry without a title, which yt-dlp
+#                   prints as NA (default 0, never)
+
+ENTRIES=${STUB_ENTRIES:-500}
+MEDIA=${STUB_MEDIA:-file:///dev/null}
+DELAY=${STUB_DELAY:-1}
+FAIL_EVERY=${STUB_FAIL_EVERY:-0}
+UNTITLED_EVERY=${STUB_UNTITLED_EVERY:-0}
+
+for arg in "$@"; do
+    case "$arg" in
+        --flat-playlist)
+            i=1
+            while [ "$i" -le "$ENTRIES" ]; do
+                if [ "$UNTITLED_EVERY" -gt 0 ] && [ $((i % UNTITLED_EVERY)) -eq 0 ]; then
+                    printf 'https://stub.invalid/watch?v=%d\tNA\n' "$i"
+                else
+                    printf 'https://stub.invalid/watch?v=%d\tStub entry %d\n' "$i" "$i"
+                fi
+                i=$((i + 1))
+            done
+            exit 0
+            ;;
+    esac
+done
+
+# Resolve mode: the last argument is the entry URL
+for url in "$@"; do :; done
+id=${url##*=}
+sleep "$DELAY"
+if [ "$FAIL_EVERY" -gt 0 ] && [ $((id % FAIL_EVERY)) -eq 0 ]; then
+    echo "ERROR: stub failure for $url" >&2
+    exit 1
+fi
+echo "$MEDIA"
@@ -0,0 +1,266 @@
+package com.flickwav;
+
+import java.util.Arrays;
+
+/**
+ * In-process audio effects applied to interleaved float PCM before it reaches
+ * the sound card: a 10-band parametric equalizer, loudness normalization, a
+ * fade envelope used to crossfade queue items, volume and a peak limiter.
+ * The combined gain is ramped across each block rather than stepped, so
+ * volume moves and limiter release don't produce zipper noise.
+ *
+ * process() runs on the audio thread and never allocates or locks. Settings are
+ * changed from the FX thread through volatile fields; equalizer coefficients
+ * are rebuilt off the audio thread and published as a new array. Settings
+ * survive configure(), so one chain follows playback across source formats.
+ */
+public final class AudioDspChain {
+
+    public static final double[] EQ_FREQUENCIES = {31, 62, 125, 250, 500, 1000, 2000, 4000, 8000, 16000};
+    public static final double EQ_Q = 1.41;
+    public static final double EQ_MAX_GAIN_DB = 12;
+
+    private static final float LIMITER_CEILING = 0.98f;
+    private static final double LIMITER_RELEASE_SECONDS = 0.25;
+
+    // RMS based rather than full EBU R128, good enough to level tracks against each other
+    private static final float LOUDNESS_TARGET_RMS = 0.125f; // about -18 dBFS
+    private static final double LOUDNESS_WINDOW_SECONDS = 3.0;
+    private static final double LOUDNESS_GAIN_SECONDS = 0.5;
+    private static final float LOUDNESS_MIN_GAIN = 0.25f;
+    private static final float LOUDNESS_MAX_GAIN = 4f;
+    private static final float SILENCE_RMS = 1e-4f;
+
+    private static final int EQ_STRIDE = 6; // band index, b0, b1, b2, a1, a2
+
+    private int sampleRate;
+    private int channels;
+    private final DspKernels kernels;
+
+    // Equalizer settings, only touched on the FX thread
+    private final double[] bandFrequency = EQ_FREQUENCIES.clone();
+    private final double[] bandGainDb = new double[EQ_FREQUENCIES.length];
+    private final double[] bandQ = new double[EQ_FREQUENCIES.length];
+
+    private volatile float[] eqCoefficients; // active bands only, null when flat
+    private volatile boolean effectsEnabled = true;
+    private volatile float volume = 1f;
+    private volatile boolean limiterEnabled = true;
+    private volatile boolean normalizationEnabled;
+    private volatile float fadeTarget = 1f;
+    private volatile float fadeStep = 1f;
+    private volatile boolean fadeRestart;
+
+    // Audio thread state
+    private float[] eqState1;
+    private float[] eqState2;
+    private float fadeGain = 1f;
+    private float lastGain = 1f;
+    private float limiterGain = 1f;
+    private float loudnessMeanSquare = LOUDNESS_TARGET_RMS * LOUDNESS_TARGET_RMS;
+    private float loudnessGain = 1f;
+    private volatile double load;
+
+    public AudioDspChain(int sampleRate, int channels) {
+        this(sampleRate, channels, DspKernels.create());
+    }
+
+    AudioDspChain(int sampleRate, int channels, DspKernels kernels) {
+        this.kernels = kernels;
+        Arrays.fill(bandQ, EQ_Q);
+        configure(sampleRate, channels);
+    }
+
+    /**
+     * Switches to a new source format, keeping all settings. Must not be called
+     * while process() can run, i.e. only while no output is feeding the chain.
+     */
+    public void configure(int sampleRate, int channels) {
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+        eqState1 = new float[EQ_FREQUENCIES.length * channels];
+        eqState2 = new float[EQ_FREQUENCIES.length * channels];
+        limiterGain = 1f;
+        lastGain = volume;
+        loudnessMeanSquare = LOUDNESS_TARGET_RMS * LOUDNESS_TARGET_RMS;
+        loudnessGain = 1f;
+        publishEqualizer();
+    }
+
+    /**
+     * Processes frames of interleaved samples in place.
+     */
+    public void process(float[] samples, int frames) {
+        long start = System.nanoTime();
+        int len = frames * channels;
+
+        float gain = volume;
+        boolean effects = effectsEnabled;
+
+        float[] eq = eqCoefficients;
+        if (effects && eq != null) {
+            applyEqualizer(eq, samples, frames);
+        }
+
+        if (effects && normalizationEnabled) {
+            float meanSquare = kernels.sumSquares(samples, len) / len;
+            loudnessMeanSquare += (meanSquare - loudnessMeanSquare) * smoothing(frames, LOUDNESS_WINDOW_SECONDS);
+            float rms = (float) Math.sqrt(loudnessMeanSquare);
+            if (rms > SILENCE_RMS) {
+                float target = Math.max(LOUDNESS_MIN_GAIN, Math.min(LOUDNESS_MAX_GAIN, LOUDNESS_TARGET_RMS / rms));
+                loudnessGain += (target - loudnessGain) * smoothing(frames, LOUDNESS_GAIN_SECONDS);
+            }
+            gain *= loudnessGain;
+        }
+
+        if (fadeRestart) {
+            fadeRestart = false;
+            fadeGain = 0f;
+        }
+        float fadeDelta = fadeStep * frames;
+        fadeGain = fadeGain < fadeTarget
+                ? Math.min(fadeTarget, fadeGain + fadeDelta)
+                : Math.max(fadeTarget, fadeGain - fadeDelta);
+        if (effects) {
+            gain *= fadeGain;
+        }
+
+        float startGain = lastGain;
+        if (effects && limiterEnabled) {
+            float peak = kernels.peak(samples, len);
+            float target = peak * gain > LIMITER_CEILING ? LIMITER_CEILING / (peak * gain) : 1f;
+            if (target < limiterGain) {
+                limiterGain = target;
+            } else {
+                limiterGain += (target - limiterGain) * smoothing(frames, LIMITER_RELEASE_SECONDS);
+            }
+            gain *= limiterGain;
+            // Attack is instant: ramping down from the previous gain would let
+            // the start of this block through above the ceiling
+            if (peak * startGain > LIMITER_CEILING) {
+                startGain = Math.min(startGain, gain);
+            }
+        }
+
+        if (startGain != gain) {
+            kernels.ramp(samples, len, startGain, gain);
+        } else if (gain != 1f) {
+            kernels.scale(samples, len, gain);
+        }
+        lastGain = gain;
+
+        double blockNanos = frames * 1e9 / sampleRate;
+        load += ((System.nanoTime() - start) / blockNanos - load) * 0.05;
+    }
+
+    private void applyEqualizer(float[] eq, float[] samples, int frames) {
+        for (int c = 0; c < eq.length; c += EQ_STRIDE) {
+            int band = (int) eq[c];
+            kernels.biquad(samples, frames, channels, eq[c + 1], eq[c + 2], eq[c + 3], eq[c + 4], eq[c + 5],
+                    eqState1, eqState2, band * channels);
+        }
+    }
+
+    private float smoothing(int frames, double seconds) {
+        return (float) (1 - Math.exp(-frames / (seconds * sampleRate)));
+    }
+
+    public void setBandGain(int band, double gainDb) {
+        setBand(band, bandFrequency[band], gainDb, bandQ[band]);
+    }
+
+    public double getBandGain(int band) {
+        return bandGainDb[band];
+    }
+
+    /**
+     * Sets one equalizer band to a peaking filter (RBJ cookbook) and publishes
+     * the rebuilt coefficient table to the audio thread.
+     */
+    public void setBand(int band, double frequency, double gainDb, double q) {
+        bandFrequency[band] = frequency;
+        bandGainDb[band] = Math.max(-EQ_MAX_GAIN_DB, Math.min(EQ_MAX_GAIN_DB, gainDb));
+        bandQ[band] = q;
+        publishEqualizer();
+    }
+
+    private void publishEqualizer() {
+        int active = 0;
+        for (int i = 0; i < bandGainDb.length; i++) {
+            if (isBandActive(i)) active++;
+        }
+        if (active == 0) {
+            eqCoefficients = null;
+            return;
+        }
+
+        float[] eq = new float[active * EQ_STRIDE];
+        int c = 0;
+        for (int i = 0; i < bandGainDb.length; i++) {
+            if (!isBandActive(i)) {
+                continue;
+            }
+            double a = Math.pow(10, bandGainDb[i] / 40);
+            double w0 = 2 * Math.PI * bandFrequency[i] / sampleRate;
+            double alpha = Math.sin(w0) / (2 * bandQ[i]);
+            double cos = Math.cos(w0);
+            double a0 = 1 + alpha / a;
+
+            eq[c] = i;
+            eq[c + 1] = (float) ((1 + alpha * a) / a0);
+            eq[c + 2] = (float) (-2 * cos / a0);
+            eq[c + 3] = (float) ((1 - alpha * a) / a0);
+            eq[c + 4] = (float) (-2 * cos / a0);
+            eq[c + 5] = (float) ((1 - alpha / a) / a0);
+            c += EQ_STRIDE;
+        }
+        eqCoefficients = eq;
+    }
+
+    private boolean isBandActive(int band) {
+        return bandGainDb[band] != 0 && bandFrequency[band] < sampleRate * 0.45;
+    }
+
+    /** When off only volume is applied, e.g. while the output just feeds the visualizer. */
+    public void setEffectsEnabled(boolean enabled) {
+        this.effectsEnabled = enabled;
+    }
+
+    public void setVolume(float volume) {
+        this.volume = volume;
+    }
+
+    public void setLimiterEnabled(boolean enabled) {
+        this.limiterEnabled = enabled;
+    }
+
+    public void setNormalizationEnabled(boolean enabled) {
+        this.normalizationEnabled = enabled;
+    }
+
+    /** Ramps from silence to full level over millis, or jumps to full level when millis is 0. */
+    public void fadeIn(long millis) {
+        fadeTarget = 1f;
+        fadeStep = step(millis);
+        fadeRestart = millis > 0;
+    }
+
+    /** Ramps down to silence over millis. */
+    public void fadeOut(long millis) {
+        fadeTarget = 0f;
+        fadeStep = step(millis);
+    }
+
+    private float step(long millis) {
+        return millis <= 0 ? 1f : (float) (1000.0 / (millis * sampleRate));
+    }
+
+    /** Smoothed processing time as a fraction of the audio block duration. */
+    public double getLoad() {
+        return load;
+    }
+
+    public String getKernelName() {
+        return kernels.name();
+    }
+}
@@ -0,0 +1,92 @@
+package com.flickwav;
+
+import com.mpatric.mp3agic.InvalidDataException;
+import com.mpatric.mp3agic.Mp3File;
+import com.mpatric.mp3agic.UnsupportedTagException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Locale;
+import java.util.Set;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+/**
+ * Sample rate and channel count of an audio-only file, read from its header so
+ * the effects output can be opened at the file's own format instead of having
+ * libvlc resample and downmix everything.
+ */
+record AudioSourceFormat(int sampleRate, int channels) {
+
+    /** Used when the header can't be read, and as the fallback line format. */
+    static final AudioSourceFormat DEFAULT = new AudioSourceFormat(48000, 2);
+
+    private static final int MAX_SAMPLE_RATE = 192000;
+    private static final int MAX_CHANNELS = 8;
+    private static final int HEADER_BUFFER_BYTES = 16 * 1024;
+
+    private static final Set<String> AUDIO_EXTENSIONS = Set.of(
+            "mp3", "wav", "flac", "ogg", "oga", "opus", "m4a", "aac", "wma", "aif", "aiff", "au");
+
+    /** True for local files that never carry a video track. */
+    static boolean isAudioFile(String path) {
+        int dot = path.lastIndexOf('.');
+        return !path.contains("://") && dot >= 0
+                && AUDIO_EXTENSIONS.contains(path.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+
+    static AudioSourceFormat probe(File file) {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        try {
+            AudioSourceFormat format;
+            if (name.endsWith(".mp3")) {
+                format = probeMp3(file);
+            } else if (name.endsWith(".flac")) {
+                format = probeFlac(file);
+            } else if (name.endsWith(".wav") || name.endsWith(".aif") || name.endsWith(".aiff") || name.endsWith(".au")) {
+                AudioFormat audio = AudioSystem.getAudioFileFormat(file).getFormat();
+                format = new AudioSourceFormat(Math.round(audio.getSampleRate()), audio.getChannels());
+            } else {
+                format = null;
+            }
+            if (format != null && format.sampleRate() >= 8000 && format.sampleRate() <= MAX_SAMPLE_RATE
+                    && format.channels() >= 1 && format.channels() <= MAX_CHANNELS) {
+                return format;
+            }
+        } catch (IOException | UnsupportedAudioFileException | UnsupportedTagException | InvalidDataException e) {
+            System.err.println("❌ Can't read audio format of " + file + ": " + e.getMessage());
+        }
+        return DEFAULT;
+    }
+
+    private static AudioSourceFormat probeMp3(File file)
+            throws IOException, UnsupportedTagException, InvalidDataException {
+        // Without a full scan mp3agic stops at the first frame header
+        Mp3File mp3 = new Mp3File(file.getPath(), HEADER_BUFFER_BYTES, false);
+        int channels = "Mono".equals(mp3.getChannelMode()) ? 1 : 2;
+        return new AudioSourceFormat(mp3.getSampleRate(), channels);
+    }
+
+    // STREAMINFO is always the first metadata block, right after the "fLaC" marker
+    private static AudioSourceFormat probeFlac(File file) throws IOException {
+        byte[] header = new byte[22];
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            if (in.readNBytes(header, 0, header.length) < header.length
+                    || header[0] != 'f' || header[1] != 'L' || header[2] != 'a' || header[3] != 'C') {
+                return null;
+            }
+        }
+        int sampleRate = (header[18] & 0xff) << 12 | (header[19] & 0xff) << 4 | (header[20] & 0xff) >> 4;
+        int channels = ((header[20] & 0xff) >> 1 & 0x7) + 1;
+        return new AudioSourceFormat(sampleRate, channels);
+    }
+
+    @Override
+    public String toString() {
+        return sampleRate + " Hz/" + channels + "ch";
+    }
+}
@@ -0,0 +1,133 @@
+package com.flickwav;
+
+import com.sun.jna.Pointer;
+
+import uk.co.caprica.vlcj.player.base.MediaPlayer;
+import uk.co.caprica.vlcj.player.base.callback.AudioCallbackAdapter;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * Callback audio output: libvlc hands over decoded S16 PCM, which is run
+ * through an {@link AudioDspChain} and written to a Java Sound line.
+ *
+ * Only audio-only media is routed here, so pts is not used for A/V sync; the
+ * line is opened with a small explicit buffer to keep the added latency (and
+ * how far the visualizer tap runs ahead of the speakers) bounded.
+ *
+ * All buffers are allocated up front; blocks larger than the buffers are
+ * processed in chunks.
+ */
+public final class DspAudioOutput extends AudioCallbackAdapter {
+
+    public static final String FORMAT = "S16N";
+
+    private static final int BLOCK_MILLIS = 20;
+    private static final int LINE_BUFFER_MILLIS = 50;
+
+    private final AudioSourceFormat sourceFormat;
+    private final int channels;
+    private final int maxFrames;
+    private final AudioDspChain dsp;
+    private final SourceDataLine line;
+    private final short[] pcm;
+    private final float[] samples;
+    private final byte[] output;
+    private final double latencyMillis;
+    private volatile PcmRingBuffer tap;
+
+    /**
+     * Opens a line for sourceFormat and reconfigures dsp to match it. The chain
+     * must not be in use by another output at this point.
+     */
+    public DspAudioOutput(AudioDspChain dsp, AudioSourceFormat sourceFormat) throws LineUnavailableException {
+        int sampleRate = sourceFormat.sampleRate();
+        this.sourceFormat = sourceFormat;
+        this.channels = sourceFormat.channels();
+        this.maxFrames = sampleRate * BLOCK_MILLIS / 1000;
+        this.dsp = dsp;
+        this.pcm = new short[maxFrames * channels];
+        this.samples = new float[maxFrames * channels];
+        this.output = new byte[maxFrames * channels * 2];
+
+        AudioFormat format = new AudioFormat(sampleRate, 16, channels, true, false);
+        line = AudioSystem.getSourceDataLine(format);
+        line.open(format, sampleRate * LINE_BUFFER_MILLIS / 1000 * format.getFrameSize());
+        line.start();
+        // The mixer may round the requested size, so report what we actually got
+        latencyMillis = line.getBufferSize() * 1000.0 / (format.getFrameSize() * (double) sampleRate);
+        dsp.configure(sampleRate, channels);
+
+        System.out.println(String.format("✅ Audio DSP using %s kernels at %s, %.0f ms output latency",
+                dsp.getKernelName(), sourceFormat, latencyMillis));
+    }
+
+    public AudioSourceFormat sourceFormat() {
+        return sourceFormat;
+    }
+
+    /** Time a sample spends in the line buffer before it is heard. */
+    public double getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    /** Sets a ring that receives a mono copy of the processed audio, or null to stop. */
+    public void setTap(PcmRingBuffer tap) {
+        this.tap = tap;
+    }
+
+    @Override
+    public void play(MediaPlayer mediaPlayer, Pointer data, int sampleCount, long pts) {
+        for (int offset = 0; offset < sampleCount; offset += maxFrames) {
+            int frames = Math.min(maxFrames, sampleCount - offset);
+            int len = frames * channels;
+
+            data.read((long) offset * channels * 2, pcm, 0, len);
+            for (int i = 0; i < len; i++) {
+                samples[i] = pcm[i] * (1f / 32768f);
+            }
+
+            dsp.process(samples, frames);
+
+            PcmRingBuffer tap = this.tap;
+            if (tap != null) {
+                tap.write(samples, frames, channels);
+            }
+
+            for (int i = 0, b = 0; i < len; i++, b += 2) {
+                int s = Math.round(samples[i] * 32767f);
+                s = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, s));
+                output[b] = (byte) s;
+                output[b + 1] = (byte) (s >> 8);
+            }
+            line.write(output, 0, len * 2);
+        }
+    }
+
+    @Override
+    public void pause(MediaPlayer mediaPlayer, long pts) {
+        line.stop();
+    }
+
+    @Override
+    public void resume(MediaPlayer mediaPlayer, long pts) {
+        line.start();
+    }
+
+    @Override
+    public void flush(MediaPlayer mediaPlayer, long pts) {
+        line.flush();
+    }
+
+    @Override
+    public void drain(MediaPlayer mediaPlayer) {
+        line.drain();
+    }
+
+    public void close() {
+        line.close();
+    }
+}
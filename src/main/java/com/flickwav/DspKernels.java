@@ -0,0 +1,47 @@
+package com.flickwav;
+
+/**
+ * Bulk float kernels used by {@link AudioDspChain}. The Vector API version is
+ * used when the jdk.incubator.vector module is available and the hardware has
+ * 256-bit vectors, the scalar version otherwise.
+ */
+interface DspKernels {
+
+    /** Multiplies the first len samples by gain. */
+    void scale(float[] samples, int len, float gain);
+
+    /**
+     * Multiplies the first len samples by a gain moving linearly from one block
+     * to the next: sample i gets from + (to - from) * (i + 1) / len.
+     */
+    void ramp(float[] samples, int len, float from, float to);
+
+    /**
+     * Runs one transposed direct form II biquad over frames of interleaved
+     * samples, in place. Channel ch keeps its filter state in
+     * state1/state2[stateOffset + ch].
+     */
+    void biquad(float[] samples, int frames, int channels, float b0, float b1, float b2, float a1, float a2,
+                float[] state1, float[] state2, int stateOffset);
+
+    /** Returns the largest absolute value in the first len samples. */
+    float peak(float[] samples, int len);
+
+    /** Returns the sum of squares of the first len samples. */
+    float sumSquares(float[] samples, int len);
+
+    String name();
+
+    static DspKernels create() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                if (VectorDspKernels.isAccelerated()) {
+                    return new VectorDspKernels();
+                }
+            } catch (LinkageError e) {
+                System.err.println("Vector API unavailable, using scalar audio DSP: " + e);
+            }
+        }
+        return new ScalarDspKernels();
+    }
+}
@@ -2,6 +2,7 @@ package com.flickwav;
 
 import javafx.application.Application;
 import javafx.application.Platform;
+import javafx.beans.binding.Bindings;
 import javafx.geometry.Insets;
 import javafx.scene.Node;
 import javafx.scene.Scene;
@@ -30,14 +31,19 @@ import com.mpatric.mp3agic.*;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
-import java.util.Scanner;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
+import javax.sound.sampled.LineUnavailableException;
+
 public class Main extends Application {
 
     private MediaPlayerFactory mediaPlayerFactory;
-    private EmbeddedMediaPlayer mediaPlayer;
+    private volatile EmbeddedMediaPlayer mediaPlayer;
     private ImageView videoView;
     private Stage primaryStage;
     private Button playButton;
@@ -49,6 +55,65 @@ public class Main extends Application {
     private Menu subtitleMenu;
     private boolean controlsVisible = true;
     private javafx.animation.PauseTransition hideControlsTimer;
+    private ComboBox<String> speedCombo;
+
+    // Trick-play: above 2x (or in reverse) we stop decoding every frame and instead
+    // pause the player and step through the media with periodic keyframe seeks.
+    private static final long TRICK_PLAY_INTERVAL_MS = 250;
+    // Makes seeks land on the nearest keyframe instead of decoding up to the exact time
+    private static final String FAST_SEEK_OPTION = ":input-fast-seek";
+    private ScheduledExecutorService trickPlayExecutor;
+    private volatile ScheduledFuture<?> trickPlayTask;
+    private final Object trickPlayLock = new Object();
+    private long trickPlayGeneration;
+    private volatile long trickPlayTime;
+    private boolean trickPlayWasMuted;
+
+    private static final int PLAYLIST_BATCH_SIZE = 1000;
+    private final PlayQueue playQueue = new PlayQueue();
+    private ListView<String> queueView;
+    private CheckMenuItem showQueueItem;
+    private boolean playingFromQueue;
+    // Bumped by every play or stop the user asks for, so a stream resolve or
+    // an import that finishes later can tell it has been overtaken
+    private int playRequest;
+    private Thread playlistImportThread;
+    private int playlistImportGeneration;
+    private final QueueMetadataLoader metadataLoader =
+            new QueueMetadataLoader((request, title) -> Platform.runLater(() -> applyQueueMetadata(request, title)));
+
+    // Audio-only files go to a second player whose decoded PCM runs through our
+    // own effects chain; video and streams always stay on libvlc's output.
+    // mediaPlayer points at whichever of the two is in use.
+    private static final long CROSSFADE_MILLIS = 3000;
+    private EmbeddedMediaPlayer defaultPlayer;
+    private EmbeddedMediaPlayer effectsPlayer;
+    private final AudioDspChain audioEffects =
+            new AudioDspChain(AudioSourceFormat.DEFAULT.sampleRate(), AudioSourceFormat.DEFAULT.channels());
+    private DspAudioOutput audioOutput;
+    private boolean effectsEnabled;
+    private boolean visualizerEnabled;
+    private boolean crossfadeEnabled;
+    private boolean crossfadeFadingOut;
+    private SpectrumView spectrumView;
+
+    private static final int YOUTUBE_RESOLVE_WORKERS = 3;
+    private static final int YOUTUBE_RESOLVE_AHEAD = 4;
+    private static final String[] YOUTUBE_VLC_OPTIONS = {
+        ":network-caching=5000",            // Increased to 5s buffer
+        ":http-reconnect",
+        ":http-continuous",
+        ":http-user-agent=Mozilla/5.0",
+        ":http-referrer=https://www.youtube.com/",
+        ":tls-version=1.2",
+        FAST_SEEK_OPTION
+    };
+    private final StreamExtractor streamExtractor = new YtDlpExtractor(
+            System.getProperty("flickwav.ytdlp", System.getenv().getOrDefault("FLICKWAV_YTDLP", "yt-dlp")));
+    private StreamResolver streamResolver;
+    private long youtubeIngestStart;
+    private boolean youtubeFirstPlayStarted;
+    private boolean youtubeFirstPlayLogged;
     
     private abstract class SimpleMediaPlayerEventAdapter implements MediaPlayerEventListener {
         public void mediaChanged(MediaPlayer mediaPlayer, MediaRef media) {}
@@ -82,20 +147,30 @@ public class Main extends Application {
         new NativeDiscovery().discover();
 
         mediaPlayerFactory = new MediaPlayerFactory();
-        mediaPlayer = mediaPlayerFactory.mediaPlayers().newEmbeddedMediaPlayer();
-        
-        addListenerForButtons();
+        defaultPlayer = mediaPlayerFactory.mediaPlayers().newEmbeddedMediaPlayer();
+        mediaPlayer = defaultPlayer;
+        audioEffects.setEffectsEnabled(false);
+
+        trickPlayExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "trick-play");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        addListenerForButtons(defaultPlayer);
 
         videoView = new ImageView();
         videoView.setPreserveRatio(true);
         videoView.setStyle("-fx-background-color: black;");
 
-        mediaPlayer.videoSurface().set(new ImageViewVideoSurface(videoView));
+        defaultPlayer.videoSurface().set(new ImageViewVideoSurface(videoView));
 
         MenuBar menuBar = new MenuBar();
 
         Menu fileMenu = new Menu("File");
         MenuItem openItem = new MenuItem("Open File");
+        MenuItem openPlaylistItem = new MenuItem("Open Playlist...");
+        openPlaylistItem.setOnAction(e -> openPlaylist(stage));
 
         MenuItem exitItem = new MenuItem("Exit");
         
@@ -107,10 +182,29 @@ public class Main extends Application {
         subtitleMenu.getItems().add(loadSubtitleItem);
         
         Menu streamingMenu = new Menu("Streaming");
-        MenuItem youtubeStreamItem = new MenuItem("Play YouTube Video...");
+        MenuItem youtubeStreamItem = new MenuItem("Play YouTube Video or Playlist...");
         youtubeStreamItem.setOnAction(e -> showYouTubeStreamDialog());
         streamingMenu.getItems().add(youtubeStreamItem);
 
+        Menu queueMenu = new Menu("Queue");
+        showQueueItem = new CheckMenuItem("Show Queue");
+        showQueueItem.setOnAction(e -> setQueueVisible(showQueueItem.isSelected()));
+        CheckMenuItem shuffleItem = new CheckMenuItem("Shuffle");
+        shuffleItem.setOnAction(e -> playQueue.setShuffle(shuffleItem.isSelected()));
+        MenuItem nextItem = new MenuItem("Next");
+        nextItem.setOnAction(e -> playNextInQueue());
+        MenuItem previousItem = new MenuItem("Previous");
+        previousItem.setOnAction(e -> playPreviousInQueue());
+        MenuItem clearQueueItem = new MenuItem("Clear Queue");
+        clearQueueItem.setOnAction(e -> {
+            cancelPlaylistImport();
+            playQueue.clear();
+        });
+        queueMenu.getItems().addAll(showQueueItem, shuffleItem, new SeparatorMenuItem(),
+                nextItem, previousItem, new SeparatorMenuItem(), clearQueueItem);
+
+        Menu effectsMenu = createEffectsMenu();
+
         openItem.setOnAction(e -> {
             openMedia(stage);
             Platform.runLater(() -> {
@@ -124,8 +218,8 @@ public class Main extends Application {
             stage.close();
         });
 
-        fileMenu.getItems().addAll(openItem, exitItem);
-        menuBar.getMenus().addAll(fileMenu, audioMenu, subtitleMenu, streamingMenu);
+        fileMenu.getItems().addAll(openItem, openPlaylistItem, exitItem);
+        menuBar.getMenus().addAll(fileMenu, audioMenu, subtitleMenu, streamingMenu, queueMenu, effectsMenu);
 
         VBox menuBarContainer = new VBox(menuBar);
 
@@ -141,7 +235,11 @@ public class Main extends Application {
         stopButton = new Button("⏹ Stop");
 
         playButton.setOnAction(e -> {
-        	mediaPlayer.controls().play();
+        	if (isTrickPlaying()) {
+        		resumeNormalPlayback();
+        	} else {
+        		mediaPlayer.controls().play();
+        	}
         	updateButtonStates();
         });
         pauseButton.setOnAction(e -> {
@@ -150,6 +248,8 @@ public class Main extends Application {
         });
 
         stopButton.setOnAction(e -> {
+            playRequest++;
+            stopTrickPlay();
             mediaPlayer.controls().stop();
 
             // Reset slider and time
@@ -164,6 +264,7 @@ public class Main extends Application {
             double percent = e.getX() / progressSlider.getWidth();
             long duration = mediaPlayer.media().info().duration();
             mediaPlayer.controls().setTime((long) (percent * duration));
+            trickPlayTime = (long) (percent * duration);
             progressSlider.setValue(percent * 100);
             updateSliderTrackStyle(progressSlider, percent);
         });
@@ -175,22 +276,33 @@ public class Main extends Application {
             long time = (long) (percent * duration);
             Platform.runLater(() -> {
                 mediaPlayer.controls().setTime(time);
+                trickPlayTime = time;
                 progressSlider.setValue(percent * 100);
                 updateSliderTrackStyle(progressSlider, percent);
             });
         });
 
         
-        ComboBox<String> speedCombo = new ComboBox<>();
+        speedCombo = new ComboBox<>();
         speedCombo.setItems(FXCollections.observableArrayList(
-            "0.5x", "0.75x", "1.0x", "1.25x", "1.5x", "2.0x"
+            "-64x", "-32x", "-16x", "-8x", "-4x",
+            "0.5x", "0.75x", "1.0x", "1.25x", "1.5x", "2.0x",
+            "4x", "8x", "16x", "32x", "64x"
         ));
         speedCombo.setValue("1.0x"); // Default speed
 
         speedCombo.setOnAction(e -> {
             String selected = speedCombo.getValue();
             double rate = Double.parseDouble(selected.replace("x", ""));
-            mediaPlayer.controls().setRate((float) rate);
+            if (rate < 0 || rate > 2.0) {
+                startTrickPlay(rate);
+            } else if (isTrickPlaying()) {
+                stopTrickPlay();
+                mediaPlayer.controls().setRate((float) rate);
+                mediaPlayer.controls().play();
+            } else {
+                mediaPlayer.controls().setRate((float) rate);
+            }
         });
         
         Slider volumeSlider = new Slider(0, 100, 50); // Min=0, Max=100, Initial=50
@@ -202,7 +314,8 @@ public class Main extends Application {
         
         volumeSlider.valueProperty().addListener((obs, oldVal, newVal) -> {
             int volume = newVal.intValue();
-            mediaPlayer.audio().setVolume(volume);
+            audioEffects.setVolume(volume / 100f);
+            defaultPlayer.audio().setVolume(volume);
 
             Node track = volumeSlider.lookup(".track");
             if (track != null) {
@@ -232,8 +345,14 @@ public class Main extends Application {
 
         root = new BorderPane();
         root.setTop(menuBarContainer);
-        root.setCenter(videoView);
+        // Live visualization drawn over the album art for audio-only media
+        spectrumView = new SpectrumView(AudioSourceFormat.DEFAULT.sampleRate());
+        spectrumView.widthProperty().bind(videoView.fitWidthProperty());
+        spectrumView.heightProperty().bind(videoView.fitHeightProperty());
+        spectrumView.setVisible(false);
+        root.setCenter(new StackPane(videoView, spectrumView));
         root.setBottom(controlBox);
+        root.setRight(createQueueView());
         root.setStyle("-fx-background-color: black;"); // Set root background to black
         
         Button fullscreenButton = new Button("⛶"); // or use an icon
@@ -252,7 +371,8 @@ public class Main extends Application {
             }
         });
         
-        videoView.fitWidthProperty().bind(root.widthProperty());
+        videoView.fitWidthProperty().bind(root.widthProperty().subtract(
+                Bindings.when(queueView.managedProperty()).then(queueView.widthProperty()).otherwise(0)));
         videoView.fitHeightProperty().bind(root.heightProperty().subtract(controlBox.heightProperty()).subtract(menuBar.heightProperty()));
         
         Platform.runLater(() -> root.requestFocus());
@@ -268,7 +388,9 @@ public class Main extends Application {
                 case SPACE:
                 case ENTER:
                     if (mediaPlayer.status().isPlayable()) {
-                        if (mediaPlayer.status().isPlaying()) {
+                        if (isTrickPlaying()) {
+                            resumeNormalPlayback();
+                        } else if (mediaPlayer.status().isPlaying()) {
                             mediaPlayer.controls().pause();
                         } else {
                             mediaPlayer.controls().play();
@@ -302,14 +424,15 @@ public class Main extends Application {
         // Thread to update slider progress and style        
         Thread updateThread = new Thread(() -> {
         	while (true) {
-                if (mediaPlayer.status().isPlaying()) {
-                    long time = mediaPlayer.status().time();
+                if (mediaPlayer.status().isPlaying() || isTrickPlaying()) {
+                    long time = isTrickPlaying() ? trickPlayTime : mediaPlayer.status().time();
                     long duration = mediaPlayer.media().info().duration();
                     Platform.runLater(() -> {
                         if (duration > 0) {
                             double percent = (double) time / duration * 100;
                             progressSlider.setValue(percent);
                             timeLabel.setText(formatTime(time) + " / " + formatTime(duration));
+                            updateCrossfade(time, duration);
 
                             Node track = progressSlider.lookup(".track");
                             if (track != null) {
@@ -382,11 +505,14 @@ public class Main extends Application {
         controlsVisible = true;
     }
 
-	private void addListenerForButtons() {
-		mediaPlayer.events().addMediaPlayerEventListener(new SimpleMediaPlayerEventAdapter() {
+	private void addListenerForButtons(EmbeddedMediaPlayer player) {
+		player.events().addMediaPlayerEventListener(new SimpleMediaPlayerEventAdapter() {
             @Override
             public void playing(MediaPlayer mediaPlayer) {
-                Platform.runLater(() -> updateButtonStates());
+                Platform.runLater(() -> {
+                    updateButtonStates();
+                    logYouTubeFirstPlay();
+                });
             }
 
             @Override
@@ -401,7 +527,12 @@ public class Main extends Application {
 
             @Override
             public void finished(MediaPlayer mediaPlayer) {
-                Platform.runLater(() -> updateButtonStates());
+                Platform.runLater(() -> {
+                    updateButtonStates();
+                    if (playingFromQueue) {
+                        playNextInQueue();
+                    }
+                });
             }
             
             @Override
@@ -410,6 +541,7 @@ public class Main extends Application {
                     Platform.runLater(() -> {
                         populateAudioTracks(audioMenu);
                         populateSubtitleTracks(subtitleMenu);
+                        setVisualizerVisible(visualizerEnabled && Main.this.mediaPlayer == effectsPlayer && isAudioOnly());
                     });
                 }
             }
@@ -458,6 +590,94 @@ public class Main extends Application {
         });
 	}
 	
+	private boolean isTrickPlaying() {
+		return trickPlayTask != null;
+	}
+
+	/**
+	 * Scans through the media at the given rate (negative for reverse) without
+	 * decoding every frame. The player is paused and muted, and every
+	 * TRICK_PLAY_INTERVAL_MS we seek ahead by rate * interval. Media is opened
+	 * with FAST_SEEK_OPTION, so each tick decodes a single keyframe no matter
+	 * how high the rate or how long the GOP is.
+	 */
+	private void startTrickPlay(double rate) {
+	    if (!mediaPlayer.status().isPlayable() || mediaPlayer.media().info() == null) {
+	        // Nothing to scan yet; don't leave the combo showing a speed that isn't applied
+	        speedCombo.setValue("1.0x");
+	        return;
+	    }
+	    if (!mediaPlayer.status().isSeekable()) {
+	        // Live streams cannot be scanned
+	        speedCombo.setValue("1.0x");
+	        return;
+	    }
+
+	    if (isTrickPlaying()) {
+	        cancelTrickPlayTask();
+	    } else {
+	        trickPlayWasMuted = mediaPlayer.audio().isMute();
+	        mediaPlayer.audio().setMute(true);
+	        mediaPlayer.controls().setRate(1.0f);
+	        mediaPlayer.controls().setPause(true);
+	        trickPlayTime = mediaPlayer.status().time();
+	    }
+
+	    long step = (long) (rate * TRICK_PLAY_INTERVAL_MS);
+	    long generation;
+	    synchronized (trickPlayLock) {
+	        generation = trickPlayGeneration;
+	    }
+	    trickPlayTask = trickPlayExecutor.scheduleAtFixedRate(() -> {
+	        synchronized (trickPlayLock) {
+	            // A tick that lost the race with cancelTrickPlayTask() must not seek
+	            // whatever media has been opened since
+	            if (generation != trickPlayGeneration) {
+	                return;
+	            }
+	            long duration = mediaPlayer.media().info().duration();
+	            long target = Math.max(0, Math.min(duration, trickPlayTime + step));
+	            trickPlayTime = target;
+	            mediaPlayer.controls().setTime(target);
+	            if (target > 0 && target < duration) {
+	                return;
+	            }
+	        }
+
+	        // Ran off either end of the media, drop back to normal playback
+	        Platform.runLater(() -> {
+	            if (isTrickPlaying()) {
+	                resumeNormalPlayback();
+	            }
+	        });
+	    }, 0, TRICK_PLAY_INTERVAL_MS, TimeUnit.MILLISECONDS);
+	}
+
+	// Once this returns no tick of the old task can still call setTime
+	private void cancelTrickPlayTask() {
+	    trickPlayTask.cancel(false);
+	    synchronized (trickPlayLock) {
+	        trickPlayGeneration++;
+	    }
+	}
+
+	private void stopTrickPlay() {
+	    if (trickPlayTask == null) {
+	        return;
+	    }
+	    cancelTrickPlayTask();
+	    trickPlayTask = null;
+	    mediaPlayer.audio().setMute(trickPlayWasMuted);
+	}
+
+	private void resumeNormalPlayback() {
+	    stopTrickPlay();
+	    speedCombo.setValue("1.0x");
+	    mediaPlayer.controls().setRate(1.0f);
+	    mediaPlayer.controls().play();
+	    updateButtonStates();
+	}
+
 	private void toggleFullScreen(Stage stage) {
 	    boolean goingFullScreen = !stage.isFullScreen();
 	    stage.setFullScreen(goingFullScreen);
@@ -540,28 +760,391 @@ public class Main extends Application {
         );
         File file = fileChooser.showOpenDialog(stage);
         if (file != null) {
-            String path = file.getAbsolutePath();
-            String filename = file.getName();
+            playRequest++;
+            playingFromQueue = false;
+            fadeInAudio(0);
+            playLocalMedia(file);
+        }
+    }
+
+    private void playLocalMedia(File file) {
+        String path = file.getAbsolutePath();
+        String filename = file.getName();
+
+        primaryStage.setTitle("Flickwav - " + filename);
+
+        stopTrickPlay();
+        speedCombo.setValue("1.0x");
+        setVisualizerVisible(false);
+
+        if (path.toLowerCase().endsWith(".mp3")) {
+            Image artwork = extractAlbumArt(path);
+            videoView.setImage(artwork);
+        } else {
+            videoView.setImage(null);
+        }
+
+        selectPlayer(useEffectsOutput(file) ? effectsPlayer : defaultPlayer);
+        mediaPlayer.media().play(path, FAST_SEEK_OPTION);
+        mediaPlayer.media().start(file.getAbsolutePath(), FAST_SEEK_OPTION);
+
+        // ✅ Shift focus to root so SPACE/ENTER work
+        Platform.runLater(() -> primaryStage.getScene().getRoot().requestFocus());
+        updateButtonStates();
+    }
+
+    private ListView<String> createQueueView() {
+        queueView = new ListView<>(playQueue);
+        queueView.setPrefWidth(280);
+        queueView.setVisible(false);
+        queueView.setManaged(false);
+        queueView.setPlaceholder(new Label("Queue is empty"));
 
-            primaryStage.setTitle("Flickwav - " + filename);
+        // Tags are only looked up for rows that actually get rendered
+        queueView.setCellFactory(list -> new ListCell<>() {
+            @Override
+            protected void updateItem(String item, boolean empty) {
+                super.updateItem(item, empty);
+                setText(empty ? null : item);
+                if (!empty) {
+                    requestQueueMetadata(getIndex());
+                }
+            }
+        });
+
+        queueView.setOnMouseClicked(e -> {
+            int position = queueView.getSelectionModel().getSelectedIndex();
+            if (e.getClickCount() == 2 && position >= 0) {
+                playQueueEntry(position);
+            }
+        });
+
+        MenuItem playItem = new MenuItem("Play");
+        playItem.setOnAction(e -> {
+            int position = queueView.getSelectionModel().getSelectedIndex();
+            if (position >= 0) playQueueEntry(position);
+        });
+        MenuItem moveUpItem = new MenuItem("Move Up");
+        moveUpItem.setOnAction(e -> moveSelectedQueueEntry(-1));
+        MenuItem moveDownItem = new MenuItem("Move Down");
+        moveDownItem.setOnAction(e -> moveSelectedQueueEntry(1));
+        queueView.setContextMenu(new ContextMenu(playItem, moveUpItem, moveDownItem));
+
+        return queueView;
+    }
+
+    private void requestQueueMetadata(int position) {
+        if (position < 0 || position >= playQueue.size() || !playQueue.claimMetadata(position)) {
+            return;
+        }
+        QueueMetadataLoader.Request dropped = metadataLoader.request(
+                playlistImportGeneration, playQueue.entryAt(position), playQueue.path(position));
+        if (dropped != null && dropped.generation() == playlistImportGeneration) {
+            playQueue.releaseMetadata(dropped.entry());
+        }
+    }
+
+    private void applyQueueMetadata(QueueMetadataLoader.Request request, String title) {
+        if (request.generation() == playlistImportGeneration && title != null) {
+            playQueue.setEntryTitle(request.entry(), title);
+        }
+    }
+
+    private void setQueueVisible(boolean visible) {
+        showQueueItem.setSelected(visible);
+        queueView.setVisible(visible);
+        queueView.setManaged(visible);
+    }
+
+    private void moveSelectedQueueEntry(int offset) {
+        int from = queueView.getSelectionModel().getSelectedIndex();
+        int to = from + offset;
+        if (from < 0 || to < 0 || to >= playQueue.size()) {
+            return;
+        }
+        playQueue.move(from, to);
+        queueView.getSelectionModel().select(to);
+    }
+
+    private void openPlaylist(Stage stage) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Open Playlist");
+        fileChooser.getExtensionFilters().addAll(
+            new FileChooser.ExtensionFilter("Playlists", "*.m3u", "*.m3u8", "*.pls"),
+            new FileChooser.ExtensionFilter("All Files", "*.*")
+        );
+        File file = fileChooser.showOpenDialog(stage);
+        if (file == null) {
+            return;
+        }
+
+        cancelPlaylistImport();
+        playQueue.clear();
+        setQueueVisible(true);
+
+        // Entries are parsed on a background thread and appended in batches, so the
+        // first ones can start playing while the rest of the file is still being read.
+        int generation = ++playlistImportGeneration;
+        int request = ++playRequest;
+        Path playlist = file.toPath();
+        playlistImportThread = new Thread(() -> {
+            long start = System.nanoTime();
+            try {
+                int count = PlaylistParser.parse(playlist, PLAYLIST_BATCH_SIZE, batch -> Platform.runLater(() -> {
+                    if (generation != playlistImportGeneration) {
+                        return;
+                    }
+                    playQueue.append(batch);
+                    if (playQueue.getCurrent() < 0 && request == playRequest) {
+                        playQueueEntry(0);
+                    }
+                }));
+                long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                System.out.println("✅ Imported " + count + " entries from " + file.getName() + " in " + elapsed + " ms");
+            } catch (IOException e) {
+                e.printStackTrace();
+                showError("Failed to read playlist: " + e.getMessage());
+            }
+        }, "playlist-import");
+        playlistImportThread.setDaemon(true);
+        playlistImportThread.start();
+    }
+
+    private void cancelPlaylistImport() {
+        playlistImportGeneration++;
+        if (playlistImportThread != null) {
+            playlistImportThread.interrupt();
+            playlistImportThread = null;
+        }
+        if (streamResolver != null) {
+            streamResolver.shutdown();
+            streamResolver = null;
+        }
+    }
 
-            if (path.toLowerCase().endsWith(".mp3")) {
-                Image artwork = extractAlbumArt(path);
-                videoView.setImage(artwork);
+    private void playQueueEntry(int position) {
+        playRequest++;
+        String path = playQueue.jump(position);
+        playingFromQueue = true;
+        fadeInAudio(crossfadeEnabled ? CROSSFADE_MILLIS : 0);
+
+        if (path.contains("://")) {
+            stopTrickPlay();
+            speedCombo.setValue("1.0x");
+            videoView.setImage(null);
+            selectPlayer(defaultPlayer);
+            if (streamResolver != null) {
+                playResolvedEntry(position, path);
             } else {
-                videoView.setImage(null);
+                mediaPlayer.media().play(path, FAST_SEEK_OPTION);
+                primaryStage.setTitle("Flickwav - " + playQueue.get(position));
+                updateButtonStates();
             }
+        } else {
+            playLocalMedia(new File(path));
+        }
 
-            mediaPlayer.media().play(path);
-            mediaPlayer.media().start(file.getAbsolutePath());
+        queueView.getSelectionModel().select(position);
+        queueView.scrollTo(position);
+    }
 
-            // ✅ Shift focus to root so SPACE/ENTER work
-            Platform.runLater(() -> primaryStage.getScene().getRoot().requestFocus());
-            updateButtonStates();
+    private void playNextInQueue() {
+        int next = playQueue.next();
+        if (next >= 0) {
+            playQueueEntry(next);
+        }
+    }
+
+    private void playPreviousInQueue() {
+        int previous = playQueue.previous();
+        if (previous >= 0) {
+            playQueueEntry(previous);
+        }
+    }
+
+    private Menu createEffectsMenu() {
+        Menu effectsMenu = new Menu("Effects");
+        AudioDspChain dsp = audioEffects;
+
+        // Both apply from the next audio file on; video never goes through the chain
+        CheckMenuItem enableItem = new CheckMenuItem("Enable Audio Effects");
+        enableItem.setOnAction(e -> {
+            effectsEnabled = enableItem.isSelected();
+            dsp.setEffectsEnabled(effectsEnabled);
+        });
+
+        CheckMenuItem visualizerItem = new CheckMenuItem("Show Visualizer");
+        visualizerItem.setOnAction(e -> {
+            visualizerEnabled = visualizerItem.isSelected();
+            if (!visualizerEnabled) {
+                setVisualizerVisible(false);
+            } else if (mediaPlayer == effectsPlayer) {
+                setVisualizerVisible(isAudioOnly());
+            }
+        });
+
+        MenuItem equalizerItem = new MenuItem("Equalizer...");
+        equalizerItem.setOnAction(e -> showEqualizerDialog(dsp));
+
+        CheckMenuItem limiterItem = new CheckMenuItem("Limiter");
+        limiterItem.setSelected(true);
+        limiterItem.setOnAction(e -> dsp.setLimiterEnabled(limiterItem.isSelected()));
+
+        CheckMenuItem normalizeItem = new CheckMenuItem("Loudness Normalization");
+        normalizeItem.setOnAction(e -> dsp.setNormalizationEnabled(normalizeItem.isSelected()));
+
+        CheckMenuItem crossfadeItem = new CheckMenuItem("Crossfade Queue Items");
+        crossfadeItem.setOnAction(e -> crossfadeEnabled = crossfadeItem.isSelected());
+
+        MenuItem loadItem = new MenuItem();
+        loadItem.setDisable(true);
+        effectsMenu.setOnShowing(e -> {
+            if (audioOutput == null || mediaPlayer != effectsPlayer) {
+                loadItem.setText("DSP idle (" + dsp.getKernelName() + ")");
+                return;
+            }
+            String load = String.format("DSP load: %.1f%% (%s), %s, %.0f ms latency", dsp.getLoad() * 100,
+                    dsp.getKernelName(), audioOutput.sourceFormat(), audioOutput.getLatencyMillis());
+            if (spectrumView.isVisible()) {
+                load += String.format(", visualizer %.2f ms/frame, FX pulse every %.1f ms, skipping %d",
+                        spectrumView.getRenderMillis(), spectrumView.getPulseMillis(), spectrumView.getFrameSkip());
+            }
+            loadItem.setText(load);
+        });
+
+        effectsMenu.getItems().addAll(enableItem, visualizerItem, new SeparatorMenuItem(),
+                equalizerItem, limiterItem, normalizeItem, crossfadeItem, new SeparatorMenuItem(), loadItem);
+        return effectsMenu;
+    }
+
+    private void showEqualizerDialog(AudioDspChain dsp) {
+        Dialog<Void> dialog = new Dialog<>();
+        dialog.setTitle("Equalizer");
+        dialog.setHeaderText(null);
+        dialog.initOwner(primaryStage);
+        dialog.getDialogPane().getButtonTypes().add(ButtonType.CLOSE);
+
+        HBox bands = new HBox(8);
+        bands.setPadding(new Insets(10));
+        Slider[] sliders = new Slider[AudioDspChain.EQ_FREQUENCIES.length];
+        for (int i = 0; i < sliders.length; i++) {
+            int band = i;
+            Slider slider = new Slider(-AudioDspChain.EQ_MAX_GAIN_DB, AudioDspChain.EQ_MAX_GAIN_DB, dsp.getBandGain(band));
+            slider.setOrientation(javafx.geometry.Orientation.VERTICAL);
+            slider.setPrefHeight(180);
+            slider.valueProperty().addListener((obs, oldVal, newVal) -> dsp.setBandGain(band, newVal.doubleValue()));
+            sliders[i] = slider;
+
+            double frequency = AudioDspChain.EQ_FREQUENCIES[i];
+            String label = frequency >= 1000 ? (int) (frequency / 1000) + "k" : String.valueOf((int) frequency);
+            VBox column = new VBox(5, slider, new Label(label));
+            column.setAlignment(javafx.geometry.Pos.CENTER);
+            bands.getChildren().add(column);
+        }
+
+        Button flatButton = new Button("Flat");
+        flatButton.setOnAction(e -> {
+            for (Slider slider : sliders) slider.setValue(0);
+        });
+
+        dialog.getDialogPane().setContent(new VBox(10, bands, flatButton));
+        dialog.show();
+    }
+
+    private boolean isAudioOnly() {
+        var info = mediaPlayer.media().info();
+        return info != null && info.videoTracks().isEmpty() && !info.audioTracks().isEmpty();
+    }
+
+    private void setVisualizerVisible(boolean visible) {
+        visible &= audioOutput != null;
+        if (spectrumView.isVisible() == visible) {
+            return;
+        }
+        spectrumView.setVisible(visible);
+        if (visible) {
+            audioOutput.setTap(spectrumView.ring());
+            spectrumView.start();
+        } else {
+            if (audioOutput != null) audioOutput.setTap(null);
+            spectrumView.stop();
+        }
+    }
+
+    // True when file should play through the effects chain, in which case the
+    // effects player has been set up with a line matching the file's format.
+    private boolean useEffectsOutput(File file) {
+        if (!(effectsEnabled || visualizerEnabled) || !AudioSourceFormat.isAudioFile(file.getPath())) {
+            return false;
+        }
+        AudioSourceFormat format = AudioSourceFormat.probe(file);
+        if (audioOutput != null && audioOutput.sourceFormat().equals(format)) {
+            return true;
         }
+
+        if (effectsPlayer == null) {
+            effectsPlayer = mediaPlayerFactory.mediaPlayers().newEmbeddedMediaPlayer();
+            addListenerForButtons(effectsPlayer);
+        } else {
+            // The old line can only be closed once libvlc stops calling into it
+            stopTrickPlay();
+            effectsPlayer.controls().stop();
+        }
+        setVisualizerVisible(false);
+        if (audioOutput != null) {
+            audioOutput.close();
+            audioOutput = null;
+        }
+
+        // Fall back to a plain stereo line and let libvlc downmix if the sound
+        // card can't take the file's own format
+        List<AudioSourceFormat> candidates = format.equals(AudioSourceFormat.DEFAULT)
+                ? List.of(format) : List.of(format, AudioSourceFormat.DEFAULT);
+        for (AudioSourceFormat candidate : candidates) {
+            try {
+                audioOutput = new DspAudioOutput(audioEffects, candidate);
+                effectsPlayer.audio().callback(DspAudioOutput.FORMAT, candidate.sampleRate(), candidate.channels(), audioOutput);
+                spectrumView.setSampleRate(candidate.sampleRate());
+                return true;
+            } catch (LineUnavailableException | IllegalArgumentException e) {
+                System.err.println("❌ No audio line for " + candidate + ": " + e.getMessage());
+            }
+        }
+        return false;
+    }
+
+    private void selectPlayer(EmbeddedMediaPlayer player) {
+        if (player == mediaPlayer) {
+            return;
+        }
+        stopTrickPlay();
+        setVisualizerVisible(false);
+        mediaPlayer.controls().stop();
+        mediaPlayer = player;
     }
 
+    private void fadeInAudio(long millis) {
+        crossfadeFadingOut = false;
+        audioEffects.fadeIn(millis);
+    }
 
+    // Fades the current queue item out over its last CROSSFADE_MILLIS; the next
+    // item fades in from playQueueEntry.
+    private void updateCrossfade(long time, long duration) {
+        if (mediaPlayer != effectsPlayer || !crossfadeEnabled || !playingFromQueue) {
+            return;
+        }
+        long remaining = duration - time;
+        boolean hasNext = playQueue.getCurrent() + 1 < playQueue.size();
+
+        if (!crossfadeFadingOut && hasNext && remaining <= CROSSFADE_MILLIS) {
+            audioEffects.fadeOut(remaining);
+            crossfadeFadingOut = true;
+        } else if (crossfadeFadingOut && remaining > CROSSFADE_MILLIS) {
+            // Seeked back out of the fade window
+            fadeInAudio(0);
+        }
+    }
 
     private Image extractAlbumArt(String filePath) {
         try {
@@ -642,7 +1225,7 @@ public class Main extends Application {
     private void showYouTubeStreamDialog() {
         TextInputDialog dialog = new TextInputDialog();
         dialog.setTitle("YouTube Streaming");
-        dialog.setHeaderText("Stream YouTube Video");
+        dialog.setHeaderText("Stream YouTube Video, Playlist or Channel");
         dialog.setContentText("Enter YouTube URL:");
 
         dialog.showAndWait().ifPresent(url -> {
@@ -652,65 +1235,99 @@ public class Main extends Application {
         });
     }
         
+    // Lists the entries behind a playlist or channel URL into the queue and
+    // starts playing the first one as soon as it resolves; later entries are
+    // resolved a few positions ahead of playback by the resolver pool. A single
+    // video skips the listing pass and is resolved straight away.
     private void playYouTubeVideo(String youtubeUrl) {
-        new Thread(() -> {
+        cancelPlaylistImport();
+        playQueue.clear();
+
+        int generation = ++playlistImportGeneration;
+        int request = ++playRequest;
+        streamResolver = new StreamResolver(streamExtractor, YOUTUBE_RESOLVE_WORKERS);
+        youtubeIngestStart = System.nanoTime();
+        youtubeFirstPlayStarted = false;
+        youtubeFirstPlayLogged = false;
+
+        if (!streamExtractor.isCollection(youtubeUrl)) {
+            playQueue.append(List.of(new PlaylistParser.Entry(youtubeUrl.trim(), null)));
+            playQueueEntry(0);
+            return;
+        }
+        setQueueVisible(true);
+
+        playlistImportThread = new Thread(() -> {
+            System.out.println("Listing YouTube entries for: " + youtubeUrl);
             try {
-                System.out.println("Fetching stream URL for: " + youtubeUrl);
-                
-                // Get direct stream URL using yt-dlp
-                ProcessBuilder builder = new ProcessBuilder(
-                	    "yt-dlp",
-                	    "-f b", 
-                	    "-g",
-                	    "--force-ipv4",
-                	    youtubeUrl
-                	);
-                
-                builder.redirectErrorStream(true);
-                Process process = builder.start();
-
-                // Read the output URL
-                Scanner scanner = new Scanner(process.getInputStream());
-                String directUrl = null;
-                while (scanner.hasNextLine()) {
-                    String line = scanner.nextLine().trim();
-                    if (line.startsWith("http")) {
-                        directUrl = line;
+                int count = streamExtractor.listEntries(youtubeUrl, entry -> Platform.runLater(() -> {
+                    if (generation != playlistImportGeneration) {
+                        return;
                     }
-                }
-                scanner.close();
+                    playQueue.append(List.of(entry));
+                    if (playQueue.getCurrent() < 0 && request == playRequest) {
+                        playQueueEntry(0);
+                    } else if (playQueue.getCurrent() >= 0) {
+                        prefetchAhead(playQueue.getCurrent());
+                    }
+                }));
+                long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - youtubeIngestStart);
+                System.out.println("✅ Listed " + count + " YouTube entries in " + elapsed + " ms");
+            } catch (InterruptedException e) {
+                // Replaced by another import
+            } catch (Exception ex) {
+                ex.printStackTrace();
+                showError("Error streaming YouTube: " + ex.getMessage());
+            }
+        }, "youtube-listing");
+        playlistImportThread.setDaemon(true);
+        playlistImportThread.start();
+    }
 
-                int exitCode = process.waitFor();
+    private void playResolvedEntry(int position, String url) {
+        StreamResolver resolver = streamResolver;
+        int request = playRequest;
+        String title = playQueue.get(position);
+        primaryStage.setTitle("Flickwav - Resolving " + title + "...");
 
-                if (directUrl == null || exitCode != 0 || directUrl.isEmpty()) {
-                    showError("Failed to extract YouTube stream URL.");
-                    return;
-                }
+        // Dropped if the user played, opened or stopped something meanwhile
+        resolver.resolveNow(url).whenComplete((streamUrl, error) -> Platform.runLater(() -> {
+            if (resolver != streamResolver || request != playRequest) {
+                return;
+            }
+            if (error != null) {
+                System.err.println("❌ Skipping " + url + ": " + error.getMessage());
+                playNextInQueue();
+                return;
+            }
+            youtubeFirstPlayStarted = true;
+            mediaPlayer.media().play(streamUrl, YOUTUBE_VLC_OPTIONS);
+            primaryStage.setTitle("Flickwav - " + title);
+            updateButtonStates();
+        }));
 
-                System.out.println("Stream URL: " + directUrl);
-            	String url = directUrl;
+        prefetchAhead(position);
+    }
 
-                // Play in VLCJ with proper streaming options
-                Platform.runLater(() -> {
-                	String[] vlcOptions = {
-                		    ":network-caching=5000",            // Increased to 5s buffer
-                		    ":http-reconnect",
-                		    ":http-continuous",
-                		    ":http-user-agent=Mozilla/5.0",
-                		    ":http-referrer=https://www.youtube.com/",
-                		    ":tls-version=1.2"
-                		};
-
-                    mediaPlayer.media().play(url, vlcOptions);
-                    primaryStage.setTitle("FlickWav - YouTube Stream");
-                });
+    // Called on libvlc's playing event, so the time includes opening the stream
+    private void logYouTubeFirstPlay() {
+        if (!youtubeFirstPlayStarted || youtubeFirstPlayLogged) {
+            return;
+        }
+        youtubeFirstPlayLogged = true;
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - youtubeIngestStart);
+        System.out.println("✅ First YouTube entry playing after " + elapsed + " ms ("
+                + playQueue.size() + " entries listed so far)");
+    }
 
-            } catch (Exception ex) {
-                ex.printStackTrace();
-                showError("Error streaming YouTube: " + ex.getMessage());
-            }
-        }).start();
-    }    
+    private void prefetchAhead(int position) {
+        if (streamResolver == null) {
+            return;
+        }
+        for (int p = position + 1; p <= position + YOUTUBE_RESOLVE_AHEAD && p < playQueue.size(); p++) {
+            streamResolver.resolve(playQueue.path(p));
+        }
+    }
 
     private void showError(String message) {
         Platform.runLater(() -> {
@@ -740,7 +1357,11 @@ public class Main extends Application {
 
     @Override
     public void stop() {
-        if (mediaPlayer != null) mediaPlayer.release();
+        if (trickPlayExecutor != null) trickPlayExecutor.shutdownNow();
+        if (streamResolver != null) streamResolver.shutdown();
+        if (defaultPlayer != null) defaultPlayer.release();
+        if (effectsPlayer != null) effectsPlayer.release();
+        if (audioOutput != null) audioOutput.close();
         if (mediaPlayerFactory != null) mediaPlayerFactory.release();
     }
 
@@ -0,0 +1,81 @@
+package com.flickwav;
+
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free single-producer/single-consumer ring of mono samples, used to hand
+ * decoded audio from the audio callback thread to the FX render loop.
+ *
+ * The producer never blocks and never looks at the consumer: when the consumer
+ * falls behind, the oldest samples are overwritten. The consumer only ever
+ * wants the most recent audio, so it skips any backlog it cannot use, and
+ * drops anything the producer overwrote while it was copying.
+ */
+public final class PcmRingBuffer {
+
+    private final float[] buffer;
+    private final int mask;
+    // At most half the ring is written per call, so the newer half is always intact
+    private final int maxChunk;
+    private final AtomicLong writePosition = new AtomicLong();
+    private long readPosition; // consumer only
+
+    /**
+     * @param capacity number of samples, must be a power of two
+     */
+    public PcmRingBuffer(int capacity) {
+        if (Integer.bitCount(capacity) != 1 || capacity < 2) {
+            throw new IllegalArgumentException("Capacity must be a power of two: " + capacity);
+        }
+        this.buffer = new float[capacity];
+        this.mask = capacity - 1;
+        this.maxChunk = capacity / 2;
+    }
+
+    /**
+     * Producer side: downmixes frames of interleaved samples to mono and
+     * appends them, overwriting the oldest samples. Of a block longer than
+     * half the capacity only the newest part is kept.
+     */
+    public void write(float[] interleaved, int frames, int channels) {
+        long write = writePosition.get();
+        int skip = Math.max(0, frames - maxChunk);
+
+        float scale = 1f / channels;
+        for (int f = skip, i = skip * channels; f < frames; f++) {
+            float sum = 0f;
+            for (int ch = 0; ch < channels; ch++, i++) {
+                sum += interleaved[i];
+            }
+            buffer[(int) ((write + f - skip) & mask)] = sum * scale;
+        }
+        writePosition.setRelease(write + frames - skip);
+    }
+
+    /**
+     * Consumer side: copies up to max of the most recent samples into dst,
+     * discarding anything older, and returns how many were copied. max is
+     * capped at half the capacity.
+     */
+    public int read(float[] dst, int max) {
+        long write = writePosition.getAcquire();
+        int count = (int) Math.min(write - readPosition, Math.min(max, maxChunk));
+        long start = write - count;
+        for (int i = 0; i < count; i++) {
+            dst[i] = buffer[(int) ((start + i) & mask)];
+        }
+        readPosition = write;
+
+        // Anything older than half a ring behind the producer may have been
+        // overwritten while we copied
+        VarHandle.loadLoadFence();
+        long oldestIntact = writePosition.getAcquire() - maxChunk;
+        int stale = (int) Math.min(count, Math.max(0, oldestIntact - start));
+        if (stale > 0) {
+            System.arraycopy(dst, stale, dst, 0, count - stale);
+            count -= stale;
+        }
+        return count;
+    }
+}
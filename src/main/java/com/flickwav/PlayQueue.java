@@ -0,0 +1,266 @@
+package com.flickwav;
+
+import javafx.collections.ObservableListBase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compact play queue backing the queue ListView.
+ *
+ * Entries are stored column-wise in parallel arrays: each location is split
+ * into an interned directory prefix and a file name, and titles are only kept
+ * when the playlist supplied one or once metadata has been resolved. That is
+ * roughly 21 bytes of array slots per entry plus the file name itself, with no
+ * per-entry object. The display text is derived on demand, and metadata is only
+ * looked up for rows the ListView actually renders (see claimMetadata).
+ *
+ * Positions are in play order. Jumping and toggling shuffle are O(1); shuffle
+ * is applied lazily, one random pick per call to next(), so turning it on never
+ * walks the whole queue. Must only be modified on the FX application thread.
+ */
+public final class PlayQueue extends ObservableListBase<String> {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Map<String, Integer> dirIndex = new HashMap<>();
+    private final List<String> dirs = new ArrayList<>();
+    private final Random random = new Random();
+
+    private int[] entryDir = new int[INITIAL_CAPACITY];
+    private String[] entryName = new String[INITIAL_CAPACITY];
+    private String[] entryTitle = new String[INITIAL_CAPACITY];
+    private int[] order = new int[INITIAL_CAPACITY];
+    private int[] positionOf = new int[INITIAL_CAPACITY];
+    private boolean[] metadataClaimed = new boolean[INITIAL_CAPACITY];
+    private int size;
+    private int current = -1;
+    private boolean shuffle;
+
+    @Override
+    public String get(int position) {
+        int entry = order[checkIndex(position)];
+        String title = entryTitle[entry];
+        return title != null ? title : entryName[entry];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public String path(int position) {
+        return pathOfEntry(order[checkIndex(position)]);
+    }
+
+    /** Stable id of the entry at position; unlike positions it survives moves and shuffles. */
+    public int entryAt(int position) {
+        return order[checkIndex(position)];
+    }
+
+    public String pathOfEntry(int entry) {
+        return dirs.get(entryDir[entry]) + entryName[entry];
+    }
+
+    /**
+     * Marks the entry at position as having its metadata looked up, and returns
+     * true if the caller should do so. Entries that already have a title, or
+     * were claimed before, return false.
+     */
+    public boolean claimMetadata(int position) {
+        int entry = order[checkIndex(position)];
+        if (entryTitle[entry] != null || metadataClaimed[entry]) {
+            return false;
+        }
+        metadataClaimed[entry] = true;
+        return true;
+    }
+
+    /** Gives up a claim that was never fulfilled, so the entry can be claimed again. */
+    public void releaseMetadata(int entry) {
+        metadataClaimed[entry] = false;
+    }
+
+    public void setEntryTitle(int entry, String title) {
+        int position = positionOf[entry];
+        String old = get(position);
+        entryTitle[entry] = title;
+
+        beginChange();
+        nextSet(position, old);
+        endChange();
+    }
+
+    public void append(List<PlaylistParser.Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        ensureCapacity(size + entries.size());
+
+        int from = size;
+        for (PlaylistParser.Entry e : entries) {
+            String location = e.location();
+            int split = Math.max(location.lastIndexOf('/'), location.lastIndexOf('\\')) + 1;
+            String dir = location.substring(0, split);
+
+            Integer index = dirIndex.get(dir);
+            if (index == null) {
+                index = dirs.size();
+                dirIndex.put(dir, index);
+                dirs.add(dir);
+            }
+
+            entryDir[size] = index;
+            entryName[size] = location.substring(split);
+            entryTitle[size] = e.title();
+            order[size] = size;
+            positionOf[size] = size;
+            metadataClaimed[size] = false;
+            size++;
+        }
+
+        beginChange();
+        nextAdd(from, size);
+        endChange();
+    }
+
+    @Override
+    public void clear() {
+        if (size == 0) {
+            return;
+        }
+        List<String> removed = new ArrayList<>(this);
+
+        dirIndex.clear();
+        dirs.clear();
+        entryDir = new int[INITIAL_CAPACITY];
+        entryName = new String[INITIAL_CAPACITY];
+        entryTitle = new String[INITIAL_CAPACITY];
+        order = new int[INITIAL_CAPACITY];
+        positionOf = new int[INITIAL_CAPACITY];
+        metadataClaimed = new boolean[INITIAL_CAPACITY];
+        size = 0;
+        current = -1;
+
+        beginChange();
+        nextRemove(0, removed);
+        endChange();
+    }
+
+    public int getCurrent() {
+        return current;
+    }
+
+    public void setShuffle(boolean shuffle) {
+        this.shuffle = shuffle;
+    }
+
+    public String jump(int position) {
+        current = checkIndex(position);
+        return path(position);
+    }
+
+    /**
+     * Advances to the next position, or returns -1 at the end of the queue.
+     * With shuffle on, a random not-yet-played entry is swapped into the next
+     * slot first (one step of a Fisher-Yates shuffle).
+     */
+    public int next() {
+        int next = current + 1;
+        if (next >= size) {
+            return -1;
+        }
+        if (shuffle) {
+            swap(next, next + random.nextInt(size - next));
+        }
+        current = next;
+        return current;
+    }
+
+    public int previous() {
+        if (current <= 0) {
+            return -1;
+        }
+        return --current;
+    }
+
+    /**
+     * Moves the entry at position from to position to. This shifts the
+     * entries in between, so it costs O(|from - to|) rather than O(1).
+     */
+    public void move(int from, int to) {
+        checkIndex(from);
+        checkIndex(to);
+        if (from == to) {
+            return;
+        }
+        String removed = get(from);
+
+        int entry = order[from];
+        if (from < to) {
+            System.arraycopy(order, from + 1, order, from, to - from);
+        } else {
+            System.arraycopy(order, to, order, to + 1, from - to);
+        }
+        order[to] = entry;
+        for (int p = Math.min(from, to); p <= Math.max(from, to); p++) {
+            positionOf[order[p]] = p;
+        }
+
+        if (current == from) {
+            current = to;
+        } else if (from < current && current <= to) {
+            current--;
+        } else if (to <= current && current < from) {
+            current++;
+        }
+
+        beginChange();
+        nextRemove(from, removed);
+        nextAdd(to, to + 1);
+        endChange();
+    }
+
+    private void swap(int a, int b) {
+        if (a == b) {
+            return;
+        }
+        String oldA = get(a);
+        String oldB = get(b);
+
+        int tmp = order[a];
+        order[a] = order[b];
+        order[b] = tmp;
+        positionOf[order[a]] = a;
+        positionOf[order[b]] = b;
+
+        beginChange();
+        nextSet(a, oldA);
+        nextSet(b, oldB);
+        endChange();
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= order.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, order.length + (order.length >> 1));
+        entryDir = Arrays.copyOf(entryDir, newCapacity);
+        entryName = Arrays.copyOf(entryName, newCapacity);
+        entryTitle = Arrays.copyOf(entryTitle, newCapacity);
+        order = Arrays.copyOf(order, newCapacity);
+        positionOf = Arrays.copyOf(positionOf, newCapacity);
+        metadataClaimed = Arrays.copyOf(metadataClaimed, newCapacity);
+    }
+
+    private int checkIndex(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Queue position " + position + " out of range, size " + size);
+        }
+        return position;
+    }
+}
@@ -0,0 +1,157 @@
+package com.flickwav;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Streaming reader for M3U/M3U8 and PLS playlists.
+ *
+ * The file is read line by line and entries are handed out in batches as soon
+ * as a batch fills up, so a playlist with hundreds of thousands of entries can
+ * be shown progressively instead of after the whole file has been read.
+ *
+ * .m3u8 files are UTF-8 by definition; plain .m3u and .pls files are
+ * conventionally Latin-1, so they are read as ISO-8859-1 unless they start
+ * with a UTF-8 byte order mark. Undecodable bytes are replaced rather than
+ * aborting the import.
+ */
+public final class PlaylistParser {
+
+    public record Entry(String location, String title) {}
+
+    private final Path playlist;
+    private final Path baseDir;
+    private final int batchSize;
+    private final Consumer<List<Entry>> batchConsumer;
+    private List<Entry> batch;
+    private int count;
+
+    private PlaylistParser(Path playlist, int batchSize, Consumer<List<Entry>> batchConsumer) {
+        this.playlist = playlist;
+        this.baseDir = playlist.toAbsolutePath().getParent();
+        this.batchSize = batchSize;
+        this.batchConsumer = batchConsumer;
+        this.batch = new ArrayList<>(batchSize);
+    }
+
+    /**
+     * Parses the playlist, calling batchConsumer on the calling thread every
+     * batchSize entries. Stops early if the calling thread is interrupted.
+     *
+     * @return the number of entries read
+     */
+    public static int parse(Path playlist, int batchSize, Consumer<List<Entry>> batchConsumer) throws IOException {
+        PlaylistParser parser = new PlaylistParser(playlist, batchSize, batchConsumer);
+        String name = playlist.getFileName().toString().toLowerCase();
+        try (BufferedReader reader = openReader(playlist, name.endsWith(".m3u8"))) {
+            if (name.endsWith(".pls")) {
+                parser.readPls(reader);
+            } else {
+                parser.readM3u(reader);
+            }
+        }
+        parser.flush();
+        return parser.count;
+    }
+
+    private static BufferedReader openReader(Path playlist, boolean utf8) throws IOException {
+        InputStream in = new BufferedInputStream(Files.newInputStream(playlist));
+        in.mark(3);
+        byte[] bom = in.readNBytes(3);
+        boolean hasBom = bom.length == 3 && (bom[0] & 0xFF) == 0xEF && (bom[1] & 0xFF) == 0xBB && (bom[2] & 0xFF) == 0xBF;
+        if (!hasBom) {
+            in.reset();
+        }
+        // InputStreamReader substitutes malformed input instead of throwing
+        Charset charset = utf8 || hasBom ? StandardCharsets.UTF_8 : StandardCharsets.ISO_8859_1;
+        return new BufferedReader(new InputStreamReader(in, charset));
+    }
+
+    private void readM3u(BufferedReader reader) throws IOException {
+        String title = null;
+        String line;
+        while ((line = reader.readLine()) != null && !Thread.currentThread().isInterrupted()) {
+            line = line.trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            if (line.startsWith("#EXTINF:")) {
+                int comma = line.indexOf(',');
+                title = comma >= 0 ? line.substring(comma + 1).trim() : null;
+            } else if (!line.startsWith("#")) {
+                add(line, title);
+                title = null;
+            }
+        }
+    }
+
+    private void readPls(BufferedReader reader) throws IOException {
+        // Entries are FileN=/TitleN= pairs; the title usually follows its file,
+        // so hold one entry back until the next FileN shows up.
+        String pendingNumber = null;
+        String pendingFile = null;
+        String pendingTitle = null;
+        String line;
+        while ((line = reader.readLine()) != null && !Thread.currentThread().isInterrupted()) {
+            line = line.trim();
+            int eq = line.indexOf('=');
+            if (eq < 0) {
+                continue;
+            }
+            String key = line.substring(0, eq).trim().toLowerCase();
+            String value = line.substring(eq + 1).trim();
+
+            if (key.startsWith("file")) {
+                if (pendingFile != null) {
+                    add(pendingFile, pendingTitle);
+                }
+                pendingNumber = key.substring(4);
+                pendingFile = value;
+                pendingTitle = null;
+            } else if (key.startsWith("title") && key.substring(5).equals(pendingNumber)) {
+                pendingTitle = value;
+            }
+        }
+        if (pendingFile != null) {
+            add(pendingFile, pendingTitle);
+        }
+    }
+
+    private void add(String location, String title) {
+        batch.add(new Entry(resolve(location), title == null || title.isEmpty() ? null : title));
+        count++;
+        if (batch.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    private void flush() {
+        if (!batch.isEmpty()) {
+            batchConsumer.accept(batch);
+            batch = new ArrayList<>(batchSize);
+        }
+    }
+
+    private String resolve(String location) {
+        if (location.contains("://") || baseDir == null) {
+            return location;
+        }
+        try {
+            return baseDir.resolve(location).normalize().toString();
+        } catch (InvalidPathException e) {
+            System.err.println("Invalid path in " + playlist + ": " + location);
+            return location;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.flickwav;
+
+import com.mpatric.mp3agic.ID3v1;
+import com.mpatric.mp3agic.InvalidDataException;
+import com.mpatric.mp3agic.Mp3File;
+import com.mpatric.mp3agic.UnsupportedTagException;
+
+import java.io.IOException;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.function.BiConsumer;
+
+/**
+ * Reads tags for play queue rows in the background, one file at a time.
+ *
+ * Requests are served newest first, since those are the rows currently on
+ * screen after a scroll. At most MAX_PENDING requests are kept; older ones are
+ * handed back to the caller so their claim can be released.
+ */
+public final class QueueMetadataLoader {
+
+    public record Request(int generation, int entry, String path) {}
+
+    private static final int MAX_PENDING = 64;
+    private static final int TAG_BUFFER_BYTES = 64 * 1024;
+
+    private final LinkedBlockingDeque<Request> pending = new LinkedBlockingDeque<>();
+    private final BiConsumer<Request, String> onLoaded;
+
+    /**
+     * @param onLoaded called on the loader thread with the resolved title, or null if none was found
+     */
+    public QueueMetadataLoader(BiConsumer<Request, String> onLoaded) {
+        this.onLoaded = onLoaded;
+        Thread worker = new Thread(this::run, "queue-metadata");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Queues a lookup and returns a request that was dropped to make room, or null.
+     */
+    public Request request(int generation, int entry, String path) {
+        pending.offerFirst(new Request(generation, entry, path));
+        return pending.size() > MAX_PENDING ? pending.pollLast() : null;
+    }
+
+    private void run() {
+        while (true) {
+            Request request;
+            try {
+                request = pending.takeFirst();
+            } catch (InterruptedException e) {
+                return;
+            }
+            onLoaded.accept(request, readTitle(request.path()));
+        }
+    }
+
+    static String readTitle(String path) {
+        if (!path.toLowerCase().endsWith(".mp3")) {
+            return null;
+        }
+        try {
+            // Tags only, skip scanning every frame of the file
+            Mp3File mp3file = new Mp3File(path, TAG_BUFFER_BYTES, false);
+            ID3v1 tag = mp3file.hasId3v2Tag() ? mp3file.getId3v2Tag()
+                    : mp3file.hasId3v1Tag() ? mp3file.getId3v1Tag() : null;
+            if (tag == null || tag.getTitle() == null || tag.getTitle().isBlank()) {
+                return null;
+            }
+            String artist = tag.getArtist();
+            return artist == null || artist.isBlank() ? tag.getTitle() : artist + " - " + tag.getTitle();
+        } catch (IOException | UnsupportedTagException | InvalidDataException e) {
+            System.err.println("Could not read tags from: " + path);
+            return null;
+        }
+    }
+}
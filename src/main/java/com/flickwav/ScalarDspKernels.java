@@ -0,0 +1,65 @@
+package com.flickwav;
+
+final class ScalarDspKernels implements DspKernels {
+
+    @Override
+    public void scale(float[] samples, int len, float gain) {
+        for (int i = 0; i < len; i++) {
+            samples[i] *= gain;
+        }
+    }
+
+    @Override
+    public void ramp(float[] samples, int len, float from, float to) {
+        float step = (to - from) / len;
+        for (int i = 0; i < len; i++) {
+            samples[i] *= from + step * (i + 1);
+        }
+    }
+
+    @Override
+    public void biquad(float[] samples, int frames, int channels, float b0, float b1, float b2, float a1, float a2,
+                       float[] state1, float[] state2, int stateOffset) {
+        biquadPerChannel(samples, frames, channels, b0, b1, b2, a1, a2, state1, state2, stateOffset);
+    }
+
+    static void biquadPerChannel(float[] samples, int frames, int channels, float b0, float b1, float b2,
+                                 float a1, float a2, float[] state1, float[] state2, int stateOffset) {
+        for (int ch = 0; ch < channels; ch++) {
+            float s1 = state1[stateOffset + ch];
+            float s2 = state2[stateOffset + ch];
+            for (int i = ch, end = frames * channels; i < end; i += channels) {
+                float x = samples[i];
+                float y = b0 * x + s1;
+                s1 = b1 * x - a1 * y + s2;
+                s2 = b2 * x - a2 * y;
+                samples[i] = y;
+            }
+            state1[stateOffset + ch] = s1;
+            state2[stateOffset + ch] = s2;
+        }
+    }
+
+    @Override
+    public float peak(float[] samples, int len) {
+        float peak = 0f;
+        for (int i = 0; i < len; i++) {
+            peak = Math.max(peak, Math.abs(samples[i]));
+        }
+        return peak;
+    }
+
+    @Override
+    public float sumSquares(float[] samples, int len) {
+        float sum = 0f;
+        for (int i = 0; i < len; i++) {
+            sum += samples[i] * samples[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
@@ -0,0 +1,126 @@
+package com.flickwav;
+
+/**
+ * Turns the latest mono samples into log-spaced spectrum bar levels using a
+ * radix-2 FFT. Twiddle, bit-reversal and window tables are built once, so
+ * update() does not allocate.
+ */
+public final class SpectrumAnalyzer {
+
+    private static final double MIN_FREQUENCY = 40;
+    private static final double FLOOR_DB = -70;
+    private static final float FALL_PER_UPDATE = 0.02f;
+
+    private final int size;
+    private final float[] history;
+    private final float[] incoming;
+    private final float[] re;
+    private final float[] im;
+    private final float[] cos;
+    private final float[] sin;
+    private final float[] hann;
+    private final int[] bitReverse;
+    private final int[] barEdges;
+    private final float[] levels;
+
+    /**
+     * @param size FFT size, must be a power of two
+     */
+    public SpectrumAnalyzer(int size, int sampleRate, int bars) {
+        if (Integer.bitCount(size) != 1) {
+            throw new IllegalArgumentException("FFT size must be a power of two: " + size);
+        }
+        this.size = size;
+        this.history = new float[size];
+        this.incoming = new float[size];
+        this.re = new float[size];
+        this.im = new float[size];
+        this.cos = new float[size / 2];
+        this.sin = new float[size / 2];
+        this.hann = new float[size];
+        this.bitReverse = new int[size];
+        this.barEdges = new int[bars + 1];
+        this.levels = new float[bars];
+
+        for (int k = 0; k < size / 2; k++) {
+            cos[k] = (float) Math.cos(2 * Math.PI * k / size);
+            sin[k] = (float) Math.sin(2 * Math.PI * k / size);
+        }
+        int bits = Integer.numberOfTrailingZeros(size);
+        for (int i = 0; i < size; i++) {
+            hann[i] = (float) (0.5 - 0.5 * Math.cos(2 * Math.PI * i / (size - 1)));
+            bitReverse[i] = Integer.reverse(i) >>> (32 - bits);
+        }
+
+        double nyquist = sampleRate / 2.0;
+        for (int b = 0; b <= bars; b++) {
+            double frequency = MIN_FREQUENCY * Math.pow(nyquist / MIN_FREQUENCY, (double) b / bars);
+            int bin = (int) Math.round(frequency * size / sampleRate);
+            int previous = b > 0 ? barEdges[b - 1] + 1 : 1;
+            barEdges[b] = Math.min(size / 2, Math.max(previous, bin));
+        }
+    }
+
+    /**
+     * Pulls the newest samples from the ring into the analysis window and
+     * recomputes the bar levels. Bars fall back gradually when no audio arrives.
+     */
+    public void update(PcmRingBuffer ring) {
+        int count = ring.read(incoming, size);
+        if (count > 0) {
+            System.arraycopy(history, count, history, 0, size - count);
+            System.arraycopy(incoming, 0, history, size - count, count);
+            transform();
+        }
+
+        float fullScale = size / 4f; // peak magnitude of a full-scale sine after the Hann window
+        for (int b = 0; b < levels.length; b++) {
+            float target = 0f;
+            if (count > 0) {
+                float magnitude = 0f;
+                for (int k = barEdges[b]; k < Math.max(barEdges[b] + 1, barEdges[b + 1]) && k < size / 2; k++) {
+                    magnitude = Math.max(magnitude, (float) Math.sqrt(re[k] * re[k] + im[k] * im[k]));
+                }
+                double db = 20 * Math.log10(magnitude / fullScale + 1e-9);
+                target = (float) Math.max(0, Math.min(1, (db - FLOOR_DB) / -FLOOR_DB));
+            }
+            levels[b] = Math.max(target, levels[b] - FALL_PER_UPDATE);
+        }
+    }
+
+    private void transform() {
+        for (int i = 0; i < size; i++) {
+            int j = bitReverse[i];
+            re[i] = history[j] * hann[j];
+            im[i] = 0f;
+        }
+        for (int len = 2; len <= size; len <<= 1) {
+            int half = len >> 1;
+            int step = size / len;
+            for (int i = 0; i < size; i += len) {
+                for (int j = 0; j < half; j++) {
+                    float wr = cos[j * step];
+                    float wi = -sin[j * step];
+                    int a = i + j;
+                    int b = a + half;
+                    float tr = re[b] * wr - im[b] * wi;
+                    float ti = re[b] * wi + im[b] * wr;
+                    re[b] = re[a] - tr;
+                    im[b] = im[a] - ti;
+                    re[a] += tr;
+                    im[a] += ti;
+                }
+            }
+        }
+    }
+
+    /** Bar levels in the range 0..1. */
+    public float[] levels() {
+        return levels;
+    }
+
+    /** The most recent size samples, oldest first. */
+    public float[] samples() {
+        return history;
+    }
+}
@@ -0,0 +1,162 @@
+package com.flickwav;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+/**
+ * Spectrum bars with an oscilloscope trace on top, drawn once per FX pulse
+ * from audio handed over through a {@link PcmRingBuffer}.
+ *
+ * Most of the drawing cost lands on the Prism render thread, not in render(),
+ * so the load is judged by the time between pulses: when pulses stretch well
+ * past the shortest interval seen, frames are skipped (up to MAX_FRAME_SKIP in
+ * a row) so the visualizer cannot slow down the rest of the UI. The scope trace
+ * is also capped at one point per two pixels of width. The time render() itself
+ * takes on the FX thread is tracked separately, for display only.
+ */
+public final class SpectrumView extends Canvas {
+
+    private static final int FFT_SIZE = 2048;
+    private static final int BARS = 64;
+    private static final int SCOPE_POINTS = 512;
+    private static final int MAX_FRAME_SKIP = 3;
+    private static final int PULSES_PER_ADJUST = 30;
+    private static final double SLOW_PULSE_RATIO = 1.25;
+    private static final double FAST_PULSE_RATIO = 1.1;
+    private static final long MAX_PULSE_NANOS = 1_000_000_000; // longer gaps are stalls, not load
+
+    private static final Color BAR_COLOR = Color.web("#4caf50", 0.85);
+    private static final Color SCOPE_COLOR = Color.web("#ddd", 0.7);
+
+    private final PcmRingBuffer ring = new PcmRingBuffer(16384);
+    private SpectrumAnalyzer analyzer;
+    private final double[] scopeX = new double[SCOPE_POINTS];
+    private final double[] scopeY = new double[SCOPE_POINTS];
+    private final AnimationTimer timer;
+
+    private int frameSkip;
+    private int skipped;
+    private long lastPulse;
+    private long windowNanos;
+    private int windowPulses;
+    private long pulseNanos;
+    private long fastestPulseNanos = Long.MAX_VALUE;
+    private double renderNanos;
+
+    public SpectrumView(int sampleRate) {
+        analyzer = new SpectrumAnalyzer(FFT_SIZE, sampleRate, BARS);
+        setMouseTransparent(true);
+
+        timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                if (lastPulse != 0) {
+                    trackPulse(now - lastPulse);
+                }
+                lastPulse = now;
+
+                if (skipped++ < frameSkip) {
+                    return;
+                }
+                skipped = 0;
+
+                long start = System.nanoTime();
+                render();
+                renderNanos += (System.nanoTime() - start - renderNanos) * 0.1;
+            }
+        };
+    }
+
+    /** Matches the bar frequencies to a new source; call on the FX thread. */
+    public void setSampleRate(int sampleRate) {
+        analyzer = new SpectrumAnalyzer(FFT_SIZE, sampleRate, BARS);
+    }
+
+    public PcmRingBuffer ring() {
+        return ring;
+    }
+
+    public void start() {
+        lastPulse = 0;
+        windowNanos = 0;
+        windowPulses = 0;
+        fastestPulseNanos = Long.MAX_VALUE;
+        timer.start();
+    }
+
+    public void stop() {
+        timer.stop();
+        getGraphicsContext2D().clearRect(0, 0, getWidth(), getHeight());
+    }
+
+    /** Smoothed time render() takes on the FX thread, in milliseconds. */
+    public double getRenderMillis() {
+        return renderNanos / 1_000_000;
+    }
+
+    /**
+     * Average time between FX pulses over the last adjustment window, in
+     * milliseconds. This drives the frame skip; it is not the visualizer's own cost.
+     */
+    public double getPulseMillis() {
+        return pulseNanos / 1e6;
+    }
+
+    /** Number of pulses skipped between two drawn frames. */
+    public int getFrameSkip() {
+        return frameSkip;
+    }
+
+    // The shortest average seen stands for an unloaded pulse (the display's
+    // refresh interval); anything well above it means a frame took too long
+    // to get onto the screen.
+    private void trackPulse(long interval) {
+        if (interval > MAX_PULSE_NANOS) {
+            return;
+        }
+        windowNanos += interval;
+        if (++windowPulses < PULSES_PER_ADJUST) {
+            return;
+        }
+        pulseNanos = windowNanos / windowPulses;
+        windowNanos = 0;
+        windowPulses = 0;
+        fastestPulseNanos = Math.min(fastestPulseNanos, pulseNanos);
+
+        if (pulseNanos > fastestPulseNanos * SLOW_PULSE_RATIO && frameSkip < MAX_FRAME_SKIP) {
+            frameSkip++;
+        } else if (pulseNanos < fastestPulseNanos * FAST_PULSE_RATIO && frameSkip > 0) {
+            frameSkip--;
+        }
+    }
+
+    private void render() {
+        analyzer.update(ring);
+
+        GraphicsContext gc = getGraphicsContext2D();
+        double width = getWidth();
+        double height = getHeight();
+        gc.clearRect(0, 0, width, height);
+
+        float[] levels = analyzer.levels();
+        double barWidth = width / levels.length;
+        gc.setFill(BAR_COLOR);
+        for (int b = 0; b < levels.length; b++) {
+            double barHeight = levels[b] * height * 0.6;
+            gc.fillRect(b * barWidth + 1, height - barHeight, Math.max(1, barWidth - 2), barHeight);
+        }
+
+        float[] samples = analyzer.samples();
+        int points = (int) Math.max(2, Math.min(SCOPE_POINTS, width / 2));
+        int stride = samples.length / points;
+        for (int i = 0; i < points; i++) {
+            scopeX[i] = i * width / (points - 1);
+            scopeY[i] = height * 0.25 - samples[i * stride] * height * 0.2;
+        }
+        gc.setStroke(SCOPE_COLOR);
+        gc.setLineWidth(1.5);
+        gc.strokePolyline(scopeX, scopeY, points);
+    }
+}
@@ -0,0 +1,29 @@
+package com.flickwav;
+
+import java.io.IOException;
+import java.util.function.Consumer;
+
+/**
+ * Source of online media: lists the entries behind a video, playlist or
+ * channel URL and resolves each entry to a directly playable stream URL.
+ */
+public interface StreamExtractor {
+
+    /**
+     * True when url may stand for several entries (a playlist or channel) and
+     * has to be listed; false when it is known to be a single entry that can
+     * go straight to resolveStream().
+     */
+    boolean isCollection(String url);
+
+    /**
+     * Lists entries without resolving them, handing each to sink as soon as
+     * it is read.
+     *
+     * @return the number of entries listed
+     */
+    int listEntries(String url, Consumer<PlaylistParser.Entry> sink) throws IOException, InterruptedException;
+
+    /** Resolves one entry to a stream URL libvlc can play. */
+    String resolveStream(String url) throws IOException, InterruptedException;
+}
@@ -0,0 +1,150 @@
+package com.flickwav;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resolves entries to stream URLs on a fixed pool of extractor workers.
+ *
+ * Each URL is resolved at most once; repeated requests share the same future.
+ * Failed attempts are retried, and every failure pushes the prefetch pool back
+ * with an exponential delay, so a throttled or broken extractor is not
+ * hammered by all workers at once. A success resets the delay.
+ *
+ * An entry that still fails after its retries stays failed for prefetching;
+ * only resolveNow(), used when the entry is actually played, tries it again.
+ * resolveNow() jobs run on their own threads and ignore the shared backoff, so
+ * failing prefetches never hold up the entry the user is waiting for.
+ */
+public final class StreamResolver {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long BASE_BACKOFF_MILLIS = 1000;
+    private static final long MAX_BACKOFF_MILLIS = 30_000;
+    private static final long POLL_MILLIS = 50;
+
+    private final StreamExtractor extractor;
+    private final int maxAttempts;
+    private final long baseBackoffMillis;
+    private final long maxBackoffMillis;
+    private final ExecutorService workers;
+    private final ExecutorService urgentWorkers;
+    private final ConcurrentHashMap<String, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private volatile long backoffUntil;
+
+    public StreamResolver(StreamExtractor extractor, int workerCount) {
+        this(extractor, workerCount, MAX_ATTEMPTS, BASE_BACKOFF_MILLIS, MAX_BACKOFF_MILLIS);
+    }
+
+    StreamResolver(StreamExtractor extractor, int workerCount, int maxAttempts,
+                   long baseBackoffMillis, long maxBackoffMillis) {
+        this.extractor = extractor;
+        this.maxAttempts = maxAttempts;
+        this.baseBackoffMillis = baseBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.workers = Executors.newFixedThreadPool(workerCount, r -> {
+            Thread thread = new Thread(r, "stream-resolver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.urgentWorkers = Executors.newCachedThreadPool(r -> {
+            Thread thread = new Thread(r, "stream-resolver-now");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** Prefetch: starts resolving url in the background unless it was already tried. */
+    public CompletableFuture<String> resolve(String url) {
+        return jobs.computeIfAbsent(url, u -> submit(new Job(u), workers)).future;
+    }
+
+    /**
+     * Resolves url for immediate playback: skips the queue and the shared
+     * backoff, and retries an entry whose earlier attempts failed.
+     */
+    public CompletableFuture<String> resolveNow(String url) {
+        Job job = jobs.compute(url, (u, existing) ->
+                existing == null || existing.future.isCompletedExceptionally() ? new Job(u) : existing);
+        if (job.urgent.compareAndSet(false, true) && !job.started.get()) {
+            // A queued prefetch of the same job is skipped when its turn comes
+            submit(job, urgentWorkers);
+        }
+        return job.future;
+    }
+
+    private Job submit(Job job, ExecutorService executor) {
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            job.future.completeExceptionally(e);
+        }
+        return job;
+    }
+
+    private void run(Job job) {
+        if (!job.started.compareAndSet(false, true)) {
+            return;
+        }
+        IOException lastError = null;
+        long retryAt = 0;
+        for (int attempt = 0; attempt < maxAttempts; attempt++) {
+            try {
+                awaitTurn(job, retryAt);
+                job.future.complete(extractor.resolveStream(job.url));
+                consecutiveFailures.set(0);
+                return;
+            } catch (InterruptedException e) {
+                job.future.completeExceptionally(e);
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                lastError = e;
+                int failures = consecutiveFailures.incrementAndGet();
+                long delay = Math.min(maxBackoffMillis, baseBackoffMillis << Math.min(failures - 1, 5));
+                long now = System.currentTimeMillis();
+                backoffUntil = now + delay;
+                retryAt = now + baseBackoffMillis;
+                System.err.println("Resolve failed for " + job.url + " (attempt " + (attempt + 1) + "), backing off " + delay + " ms");
+            }
+        }
+        // Stays cached as failed so prefetching doesn't keep resubmitting it
+        job.future.completeExceptionally(lastError);
+    }
+
+    // Prefetches wait out the shared backoff; a job promoted by resolveNow()
+    // stops waiting for it and only spaces out its own retries.
+    private void awaitTurn(Job job, long retryAt) throws InterruptedException {
+        while (true) {
+            long until = job.urgent.get() ? retryAt : Math.max(retryAt, backoffUntil);
+            long wait = until - System.currentTimeMillis();
+            if (wait <= 0) {
+                return;
+            }
+            Thread.sleep(Math.min(wait, POLL_MILLIS));
+        }
+    }
+
+    public void shutdown() {
+        workers.shutdownNow();
+        urgentWorkers.shutdownNow();
+    }
+
+    private static final class Job {
+        final String url;
+        final CompletableFuture<String> future = new CompletableFuture<>();
+        final AtomicBoolean started = new AtomicBoolean();
+        final AtomicBoolean urgent = new AtomicBoolean();
+
+        Job(String url) {
+            this.url = url;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.flickwav;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Vector API kernels. Only loaded when jdk.incubator.vector is in the boot
+ * layer, see {@link DspKernels#create()}.
+ *
+ * Every kernel uses the same 256-bit species. The operations are shared code
+ * in FloatVector, and once a second shape runs through them C2 stops
+ * intrinsifying them and every vector is boxed, several MB per block.
+ */
+final class VectorDspKernels implements DspKernels {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_256;
+    private static final FloatVector IOTA = FloatVector.zero(SPECIES).addIndex(1);
+
+    /** False when the hardware has no 256-bit vectors and the shape would be emulated. */
+    static boolean isAccelerated() {
+        return SPECIES.length() <= FloatVector.SPECIES_PREFERRED.length();
+    }
+
+    @Override
+    public void scale(float[] samples, int len, float gain) {
+        int i = 0;
+        int upper = SPECIES.loopBound(len);
+        for (; i < upper; i += SPECIES.length()) {
+            FloatVector.fromArray(SPECIES, samples, i).mul(gain).intoArray(samples, i);
+        }
+        for (; i < len; i++) {
+            samples[i] *= gain;
+        }
+    }
+
+    @Override
+    public void ramp(float[] samples, int len, float from, float to) {
+        float step = (to - from) / len;
+        int i = 0;
+        int upper = SPECIES.loopBound(len);
+        for (; i < upper; i += SPECIES.length()) {
+            FloatVector gain = IOTA.add(i + 1).fma(step, from);
+            FloatVector.fromArray(SPECIES, samples, i).mul(gain).intoArray(samples, i);
+        }
+        for (; i < len; i++) {
+            samples[i] *= from + step * (i + 1);
+        }
+    }
+
+    /**
+     * The filter is recursive along time, so lanes run across channels instead:
+     * with 8 channels one vector holds a whole frame. Other channel counts use
+     * the scalar loop, since a 128-bit loop for 4 channels would add a second
+     * shape (see above).
+     */
+    @Override
+    public void biquad(float[] samples, int frames, int channels, float b0, float b1, float b2, float a1, float a2,
+                       float[] state1, float[] state2, int stateOffset) {
+        if (channels == 8) {
+            biquad8(samples, frames, b0, b1, b2, a1, a2, state1, state2, stateOffset);
+        } else {
+            ScalarDspKernels.biquadPerChannel(samples, frames, channels, b0, b1, b2, a1, a2, state1, state2, stateOffset);
+        }
+    }
+
+    // Same operation order as the scalar loop, so both paths give identical output
+    private static void biquad8(float[] samples, int frames, float b0, float b1, float b2, float a1, float a2,
+                                float[] state1, float[] state2, int stateOffset) {
+        FloatVector s1 = FloatVector.fromArray(SPECIES, state1, stateOffset);
+        FloatVector s2 = FloatVector.fromArray(SPECIES, state2, stateOffset);
+        for (int i = 0, end = frames * 8; i < end; i += 8) {
+            FloatVector x = FloatVector.fromArray(SPECIES, samples, i);
+            FloatVector y = x.mul(b0).add(s1);
+            s1 = x.mul(b1).sub(y.mul(a1)).add(s2);
+            s2 = x.mul(b2).sub(y.mul(a2));
+            y.intoArray(samples, i);
+        }
+        s1.intoArray(state1, stateOffset);
+        s2.intoArray(state2, stateOffset);
+    }
+
+    @Override
+    public float peak(float[] samples, int len) {
+        FloatVector max = FloatVector.zero(SPECIES);
+        int i = 0;
+        int upper = SPECIES.loopBound(len);
+        for (; i < upper; i += SPECIES.length()) {
+            max = max.max(FloatVector.fromArray(SPECIES, samples, i).abs());
+        }
+        float peak = max.reduceLanes(VectorOperators.MAX);
+        for (; i < len; i++) {
+            peak = Math.max(peak, Math.abs(samples[i]));
+        }
+        return peak;
+    }
+
+    @Override
+    public float sumSquares(float[] samples, int len) {
+        FloatVector acc = FloatVector.zero(SPECIES);
+        int i = 0;
+        int upper = SPECIES.loopBound(len);
+        for (; i < upper; i += SPECIES.length()) {
+            FloatVector v = FloatVector.fromArray(SPECIES, samples, i);
+            acc = v.fma(v, acc);
+        }
+        float sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < len; i++) {
+            sum += samples[i] * samples[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public String name() {
+        return "vector (" + SPECIES.length() + " lanes)";
+    }
+}
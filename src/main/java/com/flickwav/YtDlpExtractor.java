@@ -0,0 +1,130 @@
+package com.flickwav;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Scanner;
+import java.util.regex.Pattern;
+import java.util.function.Consumer;
+
+/**
+ * {@link StreamExtractor} backed by the yt-dlp command line tool. The command
+ * can be swapped for a local stub with -Dflickwav.ytdlp=/path/to/stub or the
+ * FLICKWAV_YTDLP environment variable.
+ */
+public final class YtDlpExtractor implements StreamExtractor {
+
+    private static final Pattern LIST_PARAMETER = Pattern.compile("(^|&)list=");
+    private static final String[] COLLECTION_PATHS = {"/playlist", "/channel/", "/c/", "/user/", "/@"};
+
+    private final String command;
+
+    public YtDlpExtractor(String command) {
+        this.command = command;
+    }
+
+    @Override
+    public boolean isCollection(String url) {
+        URI uri;
+        try {
+            uri = URI.create(url.trim());
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+        String host = uri.getHost() == null ? "" : uri.getHost().toLowerCase(Locale.ROOT);
+        if (!host.equals("youtu.be") && !host.equals("youtube.com") && !host.endsWith(".youtube.com")) {
+            // Other sites: let the listing pass work out what the URL is
+            return true;
+        }
+        if (uri.getRawQuery() != null && LIST_PARAMETER.matcher(uri.getRawQuery()).find()) {
+            return true;
+        }
+        String path = uri.getRawPath() == null ? "" : uri.getRawPath();
+        for (String prefix : COLLECTION_PATHS) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int listEntries(String url, Consumer<PlaylistParser.Entry> sink) throws IOException, InterruptedException {
+        // --flat-playlist only enumerates the entries, which is fast even for
+        // channels; a single video URL comes back as one entry
+        ProcessBuilder builder = new ProcessBuilder(
+                command,
+                "--flat-playlist",
+                "--force-ipv4",
+                "--print", "%(webpage_url,url)s\t%(title)s",
+                url
+        );
+        builder.redirectError(ProcessBuilder.Redirect.DISCARD);
+        Process process = builder.start();
+
+        int count = 0;
+        boolean exited = false;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException("Listing cancelled: " + url);
+                }
+                int tab = line.indexOf('\t');
+                String location = (tab >= 0 ? line.substring(0, tab) : line).trim();
+                String title = tab >= 0 ? line.substring(tab + 1).trim() : null;
+                if (!location.contains("://")) {
+                    continue;
+                }
+                sink.accept(new PlaylistParser.Entry(location, "NA".equals(title) ? null : title));
+                count++;
+            }
+
+            int exitCode = process.waitFor();
+            exited = true;
+            if (exitCode != 0 && count == 0) {
+                throw new IOException("yt-dlp could not list " + url + " (exit code " + exitCode + ")");
+            }
+            return count;
+        } finally {
+            // Only a cancelled or failed listing leaves yt-dlp running
+            if (!exited) {
+                process.destroy();
+            }
+        }
+    }
+
+    @Override
+    public String resolveStream(String url) throws IOException, InterruptedException {
+        ProcessBuilder builder = new ProcessBuilder(command, "-f", "b", "-g", "--force-ipv4", url);
+        builder.redirectErrorStream(true);
+        Process process = builder.start();
+
+        String directUrl = null;
+        boolean exited = false;
+        try (Scanner scanner = new Scanner(process.getInputStream(), StandardCharsets.UTF_8)) {
+            while (scanner.hasNextLine()) {
+                String line = scanner.nextLine().trim();
+                if (line.startsWith("http") || line.startsWith("file:")) {
+                    directUrl = line;
+                }
+            }
+
+            int exitCode = process.waitFor();
+            exited = true;
+            if (directUrl == null || exitCode != 0) {
+                throw new IOException("Failed to extract stream URL for " + url);
+            }
+            return directUrl;
+        } finally {
+            // Interrupted by StreamResolver.shutdown() or failed while reading
+            if (!exited) {
+                process.destroy();
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.flickwav;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AudioDspChainTest {
+
+    private static final int SAMPLE_RATE = 48000;
+    private static final int BLOCK_FRAMES = SAMPLE_RATE / 50;
+
+    @Test
+    void equalizerBandBoostsItsCentreFrequencyByItsGain() {
+        for (DspKernels kernels : new DspKernels[] {new ScalarDspKernels(), new VectorDspKernels()}) {
+            for (int channels : new int[] {2, 8}) {
+                AudioDspChain chain = new AudioDspChain(SAMPLE_RATE, channels, kernels);
+                chain.setLimiterEnabled(false);
+                chain.setBandGain(5, 6); // 1 kHz
+
+                double ratio = rmsRatio(chain, channels, 1000);
+                assertEquals(Math.pow(10, 6 / 20.0), ratio, 0.02, kernels.name() + ", " + channels + "ch");
+            }
+        }
+    }
+
+    @Test
+    void equalizerLeavesFrequenciesFarFromTheBandAlone() {
+        AudioDspChain chain = new AudioDspChain(SAMPLE_RATE, 2, new ScalarDspKernels());
+        chain.setLimiterEnabled(false);
+        chain.setBandGain(5, 12);
+
+        assertEquals(1.0, rmsRatio(chain, 2, 100), 0.05);
+    }
+
+    @Test
+    void vectorKernelsMatchScalarKernels() {
+        for (int channels : new int[] {1, 2, 4, 8}) {
+            AudioDspChain scalar = new AudioDspChain(SAMPLE_RATE, channels, new ScalarDspKernels());
+            AudioDspChain vector = new AudioDspChain(SAMPLE_RATE, channels, new VectorDspKernels());
+            for (AudioDspChain chain : new AudioDspChain[] {scalar, vector}) {
+                for (int band = 0; band < AudioDspChain.EQ_FREQUENCIES.length; band++) {
+                    chain.setBandGain(band, band % 2 == 0 ? 9 : -5);
+                }
+                chain.setNormalizationEnabled(true);
+            }
+
+            Random random = new Random(channels);
+            for (int block = 0; block < 10; block++) {
+                float[] a = new float[BLOCK_FRAMES * channels];
+                for (int i = 0; i < a.length; i++) {
+                    a[i] = random.nextFloat() * 2 - 1;
+                }
+                float[] b = a.clone();
+                float volume = 0.5f + block * 0.05f;
+                scalar.setVolume(volume);
+                vector.setVolume(volume);
+
+                scalar.process(a, BLOCK_FRAMES);
+                vector.process(b, BLOCK_FRAMES);
+                assertArrayEquals(a, b, 1e-5f);
+            }
+        }
+    }
+
+    @Test
+    void volumeChangeIsRampedAcrossTheBlock() {
+        AudioDspChain chain = new AudioDspChain(SAMPLE_RATE, 2, new ScalarDspKernels());
+        chain.setLimiterEnabled(false);
+
+        float[] first = constant(0.5f);
+        chain.process(first, BLOCK_FRAMES);
+        chain.setVolume(0.5f);
+        float[] second = constant(0.5f);
+        chain.process(second, BLOCK_FRAMES);
+
+        float maxStep = 0.5f * 0.5f / BLOCK_FRAMES + 1e-6f;
+        float previous = first[first.length - 1];
+        for (float sample : second) {
+            assertTrue(previous - sample <= maxStep && sample <= previous, "step " + (previous - sample));
+            previous = sample;
+        }
+        assertEquals(0.25f, second[second.length - 1], 1e-6f);
+    }
+
+    @Test
+    void limiterKeepsPeaksUnderTheCeiling() {
+        AudioDspChain chain = new AudioDspChain(SAMPLE_RATE, 2, new ScalarDspKernels());
+        float[] block = new float[BLOCK_FRAMES * 2];
+        for (int n = 0; n < 20; n++) {
+            fillSine(block, 2, 440, n * BLOCK_FRAMES, n < 10 ? 0.5 : 1.5);
+            chain.process(block, BLOCK_FRAMES);
+            for (float sample : block) {
+                assertTrue(Math.abs(sample) <= 0.98f + 1e-5f, "block " + n + ": " + sample);
+            }
+        }
+    }
+
+    @Test
+    void processAllocatesNothingAfterWarmUp() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (DspKernels kernels : new DspKernels[] {new ScalarDspKernels(), new VectorDspKernels()}) {
+            for (int channels : new int[] {2, 4, 8}) {
+                AudioDspChain chain = new AudioDspChain(SAMPLE_RATE, channels, kernels);
+                for (int band = 0; band < AudioDspChain.EQ_FREQUENCIES.length; band++) {
+                    chain.setBandGain(band, band % 2 == 0 ? 6 : -6);
+                }
+                chain.setNormalizationEnabled(true);
+                float[] block = new float[BLOCK_FRAMES * channels];
+
+                // Rounds run until the JIT has compiled the chain; only the last counts
+                long allocated = -1;
+                for (int round = 0; round < 50 && allocated != 0; round++) {
+                    long before = threads.getCurrentThreadAllocatedBytes();
+                    for (int n = 0; n < 200; n++) {
+                        fillSine(block, channels, 440, n * BLOCK_FRAMES, 0.5);
+                        chain.setVolume(n % 2 == 0 ? 0.8f : 0.9f);
+                        chain.process(block, BLOCK_FRAMES);
+                    }
+                    allocated = threads.getCurrentThreadAllocatedBytes() - before;
+                }
+                assertEquals(0, allocated, kernels.name() + ", " + channels + "ch");
+            }
+        }
+    }
+
+    // Output over input RMS of a sine, measured after the filter has settled
+    private static double rmsRatio(AudioDspChain chain, int channels, double frequency) {
+        float[] block = new float[BLOCK_FRAMES * channels];
+        double in = 0, out = 0;
+        for (int n = 0; n < 50; n++) {
+            fillSine(block, channels, frequency, n * BLOCK_FRAMES, 0.25);
+            double blockIn = sumSquares(block);
+            chain.process(block, BLOCK_FRAMES);
+            if (n >= 25) {
+                in += blockIn;
+                out += sumSquares(block);
+            }
+        }
+        return Math.sqrt(out / in);
+    }
+
+    private static void fillSine(float[] block, int channels, double frequency, int startFrame, double amplitude) {
+        for (int f = 0; f < block.length / channels; f++) {
+            float value = (float) (amplitude * Math.sin(2 * Math.PI * frequency * (startFrame + f) / SAMPLE_RATE));
+            for (int ch = 0; ch < channels; ch++) {
+                block[f * channels + ch] = value;
+            }
+        }
+    }
+
+    private static double sumSquares(float[] block) {
+        double sum = 0;
+        for (float sample : block) {
+            sum += sample * sample;
+        }
+        return sum;
+    }
+
+    private static float[] constant(float value) {
+        float[] block = new float[BLOCK_FRAMES * 2];
+        Arrays.fill(block, value);
+        return block;
+    }
+}
@@ -0,0 +1,73 @@
+package com.flickwav;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PcmRingBufferTest {
+
+    @Test
+    void rejectsCapacityThatIsNotAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new PcmRingBuffer(100));
+    }
+
+    @Test
+    void downmixesInterleavedFramesToMono() {
+        PcmRingBuffer ring = new PcmRingBuffer(16);
+        ring.write(new float[] {1f, 0f, 0.5f, 0.5f, -1f, -0.5f}, 3, 2);
+
+        float[] dst = new float[8];
+        assertEquals(3, ring.read(dst, 8));
+        assertArrayEquals(new float[] {0.5f, 0.5f, -0.75f}, copy(dst, 3));
+    }
+
+    @Test
+    void wrapsAroundTheEndOfTheRing() {
+        PcmRingBuffer ring = new PcmRingBuffer(8);
+        float[] dst = new float[4];
+        for (int round = 0; round < 5; round++) {
+            ring.write(ramp(round * 3, 3), 3, 1);
+            assertEquals(3, ring.read(dst, 4));
+            assertArrayEquals(ramp(round * 3, 3), copy(dst, 3));
+        }
+    }
+
+    @Test
+    void overwritesOldestSamplesWhenConsumerFallsBehind() {
+        PcmRingBuffer ring = new PcmRingBuffer(8);
+        for (int i = 0; i < 5; i++) {
+            ring.write(ramp(i * 3, 3), 3, 1);
+        }
+
+        float[] dst = new float[8];
+        assertEquals(4, ring.read(dst, 8)); // capped at half the capacity
+        assertArrayEquals(ramp(11, 4), copy(dst, 4));
+        assertEquals(0, ring.read(dst, 8));
+    }
+
+    @Test
+    void keepsOnlyTheNewestPartOfAnOversizedBlock() {
+        PcmRingBuffer ring = new PcmRingBuffer(8);
+        ring.write(ramp(0, 10), 10, 1);
+
+        float[] dst = new float[4];
+        assertEquals(4, ring.read(dst, 4));
+        assertArrayEquals(ramp(6, 4), dst);
+    }
+
+    private static float[] ramp(int from, int count) {
+        float[] values = new float[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = from + i;
+        }
+        return values;
+    }
+
+    private static float[] copy(float[] values, int count) {
+        return Arrays.copyOf(values, count);
+    }
+}
@@ -0,0 +1,115 @@
+package com.flickwav;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PlayQueueTest {
+
+    private PlayQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        queue = new PlayQueue();
+        List<PlaylistParser.Entry> entries = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            entries.add(new PlaylistParser.Entry("/music/track" + i + ".mp3", null));
+        }
+        queue.append(entries);
+    }
+
+    @Test
+    void splitsPathsIntoInternedDirectoriesAndNames() {
+        queue.append(List.of(new PlaylistParser.Entry("C:\\music\\x.mp3", "Title X")));
+
+        assertEquals(6, queue.size());
+        assertEquals("track0.mp3", queue.get(0));
+        assertEquals("/music/track3.mp3", queue.path(3));
+        assertEquals("Title X", queue.get(5));
+        assertEquals("C:\\music\\x.mp3", queue.path(5));
+    }
+
+    @Test
+    void moveShiftsEntriesAndKeepsCurrentOnTheSameEntry() {
+        queue.jump(2);
+
+        queue.move(0, 3);
+        assertEquals(List.of("track1.mp3", "track2.mp3", "track3.mp3", "track0.mp3", "track4.mp3"), new ArrayList<>(queue));
+        assertEquals(1, queue.getCurrent());
+
+        queue.move(4, 0);
+        assertEquals(List.of("track4.mp3", "track1.mp3", "track2.mp3", "track3.mp3", "track0.mp3"), new ArrayList<>(queue));
+        assertEquals(2, queue.getCurrent());
+
+        queue.move(2, 4);
+        assertEquals(4, queue.getCurrent());
+        assertEquals("track2.mp3", queue.get(queue.getCurrent()));
+    }
+
+    @Test
+    void entryIdsSurviveMoves() {
+        int entry = queue.entryAt(0);
+        queue.move(0, 4);
+
+        assertEquals(entry, queue.entryAt(4));
+        assertEquals("/music/track0.mp3", queue.pathOfEntry(entry));
+
+        queue.setEntryTitle(entry, "Resolved");
+        assertEquals("Resolved", queue.get(4));
+    }
+
+    @Test
+    void nextAndPreviousWalkThePlayOrder() {
+        queue.jump(3);
+        assertEquals(4, queue.next());
+        assertEquals(-1, queue.next());
+        assertEquals(3, queue.previous());
+
+        queue.jump(0);
+        assertEquals(-1, queue.previous());
+    }
+
+    @Test
+    void shufflePlaysEveryEntryExactlyOnce() {
+        queue.setShuffle(true);
+        Set<String> played = new HashSet<>();
+        played.add(queue.jump(0));
+        int position;
+        while ((position = queue.next()) >= 0) {
+            assertEquals(position, queue.getCurrent());
+            assertTrue(played.add(queue.path(position)), "played twice: " + queue.path(position));
+        }
+        assertEquals(5, played.size());
+    }
+
+    @Test
+    void metadataIsClaimedOnce() {
+        assertTrue(queue.claimMetadata(1));
+        assertFalse(queue.claimMetadata(1));
+
+        queue.releaseMetadata(queue.entryAt(1));
+        assertTrue(queue.claimMetadata(1));
+
+        queue.append(List.of(new PlaylistParser.Entry("/music/titled.mp3", "Has title")));
+        assertFalse(queue.claimMetadata(5));
+    }
+
+    @Test
+    void clearResetsQueue() {
+        queue.jump(2);
+        queue.clear();
+
+        assertEquals(0, queue.size());
+        assertEquals(-1, queue.getCurrent());
+        assertThrows(IndexOutOfBoundsException.class, () -> queue.get(0));
+    }
+}
@@ -0,0 +1,79 @@
+package com.flickwav;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Import time for a large generated M3U playlist, parsed and appended to a
+ * PlayQueue. Retained heap per queue entry is printed at the end of each fork.
+ *
+ * mvn -P benchmark test-compile exec:exec -Dbenchmark.include=PlaylistImportBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PlaylistImportBenchmark {
+
+    @Param({"100000", "500000"})
+    int entries;
+
+    private Path playlist;
+
+    @Setup
+    public void writePlaylist() throws IOException {
+        playlist = Files.createTempFile("flickwav-bench", ".m3u8");
+        try (BufferedWriter writer = Files.newBufferedWriter(playlist)) {
+            writer.write("#EXTM3U\n");
+            for (int i = 0; i < entries; i++) {
+                if (i % 2 == 0) {
+                    writer.write("#EXTINF:180,Artist " + (i % 500) + " - Track " + i + "\n");
+                }
+                writer.write("/music/artist" + (i % 500) + "/album" + (i % 50) + "/track" + i + ".mp3\n");
+            }
+        }
+    }
+
+    @Benchmark
+    public PlayQueue importPlaylist() throws IOException {
+        PlayQueue queue = new PlayQueue();
+        PlaylistParser.parse(playlist, 1000, queue::append);
+        return queue;
+    }
+
+    @TearDown
+    public void reportRetainedSize() throws IOException {
+        long before = usedHeapAfterGc();
+        PlayQueue queue = importPlaylist();
+        long after = usedHeapAfterGc();
+        System.out.printf("%nPlayQueue retained ~%d bytes/entry for %d entries%n",
+                (after - before) / queue.size(), queue.size());
+        Files.deleteIfExists(playlist);
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
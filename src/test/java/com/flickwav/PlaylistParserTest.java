@@ -0,0 +1,100 @@
+package com.flickwav;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PlaylistParserTest {
+
+    @TempDir
+    Path dir;
+
+    private List<PlaylistParser.Entry> parse(String name, byte[] content) throws IOException {
+        Path playlist = dir.resolve(name);
+        Files.write(playlist, content);
+        List<PlaylistParser.Entry> entries = new ArrayList<>();
+        int count = PlaylistParser.parse(playlist, 2, entries::addAll);
+        assertEquals(entries.size(), count);
+        return entries;
+    }
+
+    private static byte[] bytes(String text, String charset) throws IOException {
+        return text.getBytes(charset);
+    }
+
+    @Test
+    void readsExtinfTitlesAndResolvesRelativePaths() throws IOException {
+        List<PlaylistParser.Entry> entries = parse("list.m3u8", bytes(
+                "#EXTM3U\n#EXTINF:123,Artist - Song\nmusic/a.mp3\n\n# comment\nhttp://example.com/b.mp3\n", "UTF-8"));
+
+        assertEquals(2, entries.size());
+        assertEquals(dir.resolve("music/a.mp3").toString(), entries.get(0).location());
+        assertEquals("Artist - Song", entries.get(0).title());
+        assertEquals("http://example.com/b.mp3", entries.get(1).location());
+        assertNull(entries.get(1).title());
+    }
+
+    @Test
+    void decodesPlainM3uAsLatin1() throws IOException {
+        List<PlaylistParser.Entry> entries = parse("list.m3u", bytes("#EXTINF:1,Caf\u00e9\nsong.mp3\n", "ISO-8859-1"));
+
+        assertEquals(1, entries.size());
+        assertEquals("Caf\u00e9", entries.get(0).title());
+    }
+
+    @Test
+    void skipsUtf8ByteOrderMark() throws IOException {
+        byte[] body = bytes("#EXTINF:1,Caf\u00e9\nsong.mp3\n", "UTF-8");
+        byte[] content = new byte[body.length + 3];
+        content[0] = (byte) 0xEF;
+        content[1] = (byte) 0xBB;
+        content[2] = (byte) 0xBF;
+        System.arraycopy(body, 0, content, 3, body.length);
+
+        List<PlaylistParser.Entry> entries = parse("list.m3u", content);
+
+        assertEquals(1, entries.size());
+        assertEquals("Caf\u00e9", entries.get(0).title());
+        assertEquals(dir.resolve("song.mp3").toString(), entries.get(0).location());
+    }
+
+    @Test
+    void malformedUtf8DoesNotAbortImport() throws IOException {
+        byte[] content = {'#', 'E', 'X', 'T', 'I', 'N', 'F', ':', '1', ',', 'x', (byte) 0xFF, '\n',
+                'a', '.', 'm', 'p', '3', '\n', 'b', '.', 'm', 'p', '3', '\n'};
+
+        assertEquals(2, parse("list.m3u8", content).size());
+    }
+
+    @Test
+    void pairsPlsTitlesWithTheirFiles() throws IOException {
+        List<PlaylistParser.Entry> entries = parse("list.pls", bytes(
+                "[playlist]\nFile1=one.mp3\nTitle1=One\nLength1=10\nFile2=two.mp3\nFile3=three.mp3\nTitle3=Three\n"
+                        + "NumberOfEntries=3\nVersion=2\n", "ISO-8859-1"));
+
+        assertEquals(3, entries.size());
+        assertEquals("One", entries.get(0).title());
+        assertNull(entries.get(1).title());
+        assertEquals("Three", entries.get(2).title());
+        assertEquals(dir.resolve("three.mp3").toString(), entries.get(2).location());
+    }
+
+    @Test
+    void deliversEntriesInBatches() throws IOException {
+        Path playlist = dir.resolve("list.m3u");
+        Files.writeString(playlist, "a.mp3\nb.mp3\nc.mp3\nd.mp3\ne.mp3\n");
+        List<Integer> batchSizes = new ArrayList<>();
+
+        PlaylistParser.parse(playlist, 2, batch -> batchSizes.add(batch.size()));
+
+        assertEquals(List.of(2, 2, 1), batchSizes);
+    }
+}
@@ -0,0 +1,81 @@
+package com.flickwav;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpectrumAnalyzerTest {
+
+    private static final int SAMPLE_RATE = 48000;
+    private static final int FFT_SIZE = 2048;
+    private static final int BARS = 64;
+
+    private final SpectrumAnalyzer analyzer = new SpectrumAnalyzer(FFT_SIZE, SAMPLE_RATE, BARS);
+    private final PcmRingBuffer ring = new PcmRingBuffer(16384);
+
+    @Test
+    void sinePeaksInTheBarCoveringItsFrequency() {
+        // Bars are log-spaced from 40 Hz to Nyquist; bar 32 spans about 980-1083 Hz
+        int bar = 32;
+        assertTrue(barEdge(bar) < 1000 && 1000 < barEdge(bar + 1), barEdge(bar) + "-" + barEdge(bar + 1) + " Hz");
+
+        feed(sine(1000, 0.5));
+        float[] levels = analyzer.levels();
+
+        assertEquals(bar, loudest(levels));
+        assertEquals(1 + 20 * Math.log10(0.5) / 70, levels[bar], 0.02); // -6 dB on a 70 dB scale
+        // Bars next to it only catch the window's main lobe, the rest stay at the floor
+        assertTrue(levels[bar - 1] < levels[bar] - 0.2 && levels[bar + 1] < levels[bar] - 0.2);
+        for (int b = 0; b < BARS; b++) {
+            if (Math.abs(b - bar) > 2) {
+                assertTrue(levels[b] < 0.05, "bar " + b + ": " + levels[b]);
+            }
+        }
+    }
+
+    @Test
+    void barsFallGraduallyAfterTheAudioGoesSilent() {
+        feed(sine(1000, 0.5));
+        float peak = analyzer.levels()[32];
+
+        feed(new float[FFT_SIZE]);
+        float afterSilence = analyzer.levels()[32];
+        assertTrue(afterSilence < peak && afterSilence > peak - 0.05f, peak + " -> " + afterSilence);
+
+        // No audio at all keeps them falling until they reach the floor
+        for (int n = 0; n < 100; n++) {
+            analyzer.update(ring);
+        }
+        for (float level : analyzer.levels()) {
+            assertEquals(0f, level);
+        }
+    }
+
+    private void feed(float[] samples) {
+        ring.write(samples, samples.length, 1);
+        analyzer.update(ring);
+    }
+
+    private static float[] sine(double frequency, double amplitude) {
+        float[] samples = new float[FFT_SIZE];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (float) (amplitude * Math.sin(2 * Math.PI * frequency * i / SAMPLE_RATE));
+        }
+        return samples;
+    }
+
+    private static double barEdge(int bar) {
+        return 40 * Math.pow(SAMPLE_RATE / 2.0 / 40, (double) bar / BARS);
+    }
+
+    private static int loudest(float[] levels) {
+        int loudest = 0;
+        for (int b = 1; b < levels.length; b++) {
+            if (levels[b] > levels[loudest]) {
+                loudest = b;
+            }
+        }
+        return loudest;
+    }
+}
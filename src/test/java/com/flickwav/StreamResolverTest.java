@@ -0,0 +1,165 @@
+package com.flickwav;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamResolverTest {
+
+    private final FakeExtractor extractor = new FakeExtractor();
+    private StreamResolver resolver;
+
+    @AfterEach
+    void tearDown() {
+        extractor.release.countDown();
+        if (resolver != null) {
+            resolver.shutdown();
+        }
+    }
+
+    @Test
+    void retriesUntilTheExtractorSucceeds() throws Exception {
+        resolver = new StreamResolver(extractor, 2, 3, 10, 100);
+        extractor.failures.put("a", 2);
+
+        assertEquals("stream:a", get(resolver.resolve("a")));
+        assertEquals(3, extractor.calls("a"));
+    }
+
+    @Test
+    void sharesOneFuturePerUrl() throws Exception {
+        resolver = new StreamResolver(extractor, 2, 3, 10, 100);
+
+        CompletableFuture<String> first = resolver.resolve("a");
+        assertSame(first, resolver.resolve("a"));
+        get(first);
+        assertSame(first, resolver.resolveNow("a"));
+        assertEquals(1, extractor.calls("a"));
+    }
+
+    @Test
+    void prefetchDoesNotRetryAPermanentFailure() throws Exception {
+        resolver = new StreamResolver(extractor, 2, 3, 10, 100);
+        extractor.failures.put("broken", Integer.MAX_VALUE);
+
+        CompletableFuture<String> failed = resolver.resolve("broken");
+        assertThrows(ExecutionException.class, () -> get(failed));
+        assertEquals(3, extractor.calls("broken"));
+
+        assertSame(failed, resolver.resolve("broken"));
+        assertEquals(3, extractor.calls("broken"));
+    }
+
+    @Test
+    void resolveNowRetriesAFailedEntry() throws Exception {
+        resolver = new StreamResolver(extractor, 2, 2, 10, 100);
+        extractor.failures.put("flaky", 2);
+
+        assertThrows(ExecutionException.class, () -> get(resolver.resolve("flaky")));
+        assertEquals("stream:flaky", get(resolver.resolveNow("flaky")));
+        assertEquals(3, extractor.calls("flaky"));
+    }
+
+    @Test
+    void failuresBackOffLaterPrefetches() throws Exception {
+        resolver = new StreamResolver(extractor, 1, 1, 300, 1000);
+        extractor.failures.put("broken", Integer.MAX_VALUE);
+
+        assertThrows(ExecutionException.class, () -> get(resolver.resolve("broken")));
+        long start = System.nanoTime();
+        get(resolver.resolve("next"));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsed >= 200, "waited only " + elapsed + " ms");
+    }
+
+    @Test
+    void resolveNowIgnoresTheSharedBackoff() throws Exception {
+        resolver = new StreamResolver(extractor, 1, 1, 10_000, 10_000);
+        extractor.failures.put("broken", Integer.MAX_VALUE);
+
+        assertThrows(ExecutionException.class, () -> get(resolver.resolve("broken")));
+        CompletableFuture<String> prefetch = resolver.resolve("next");
+        Thread.sleep(100);
+        assertFalse(prefetch.isDone(), "prefetch should be backing off");
+
+        long start = System.nanoTime();
+        assertEquals("stream:next", get(resolver.resolveNow("next")));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+    }
+
+    @Test
+    void resolveNowSkipsPrefetchesQueuedAhead() throws Exception {
+        resolver = new StreamResolver(extractor, 1, 1, 10, 100);
+        extractor.blocked.put("slow", true);
+
+        resolver.resolve("slow");
+        assertTrue(extractor.entered.await(2, TimeUnit.SECONDS));
+        resolver.resolve("queued");
+
+        assertEquals("stream:queued", get(resolver.resolveNow("queued")));
+        extractor.release.countDown();
+        assertEquals("stream:slow", get(resolver.resolve("slow")));
+        assertEquals(1, extractor.calls("queued"));
+    }
+
+    private static String get(CompletableFuture<String> future) throws Exception {
+        return future.get(5, TimeUnit.SECONDS);
+    }
+
+    private static final class FakeExtractor implements StreamExtractor {
+
+        // Failures left before a URL resolves
+        final Map<String, Integer> failures = new ConcurrentHashMap<>();
+        // URLs whose resolve blocks until release is counted down
+        final Map<String, Boolean> blocked = new ConcurrentHashMap<>();
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        private final Map<String, AtomicInteger> calls = new ConcurrentHashMap<>();
+
+        int calls(String url) {
+            AtomicInteger count = calls.get(url);
+            return count == null ? 0 : count.get();
+        }
+
+        @Override
+        public boolean isCollection(String url) {
+            return false;
+        }
+
+        @Override
+        public int listEntries(String url, Consumer<PlaylistParser.Entry> sink) {
+            sink.accept(new PlaylistParser.Entry(url, null));
+            return 1;
+        }
+
+        @Override
+        public String resolveStream(String url) throws IOException, InterruptedException {
+            calls.computeIfAbsent(url, u -> new AtomicInteger()).incrementAndGet();
+            if (blocked.containsKey(url)) {
+                entered.countDown();
+                release.await();
+            }
+            int left = failures.getOrDefault(url, 0);
+            if (left > 0) {
+                failures.put(url, left == Integer.MAX_VALUE ? left : left - 1);
+                throw new IOException("fake failure for " + url);
+            }
+            return "stream:" + url;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.flickwav;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Runs the extractor against scripts/yt-dlp-stub.sh, so no network or yt-dlp is needed
+@DisabledOnOs(OS.WINDOWS)
+class YtDlpExtractorTest {
+
+    private static final Path STUB = Path.of("scripts", "yt-dlp-stub.sh").toAbsolutePath();
+
+    @TempDir
+    Path dir;
+
+    // The stub is configured through STUB_* variables, which a wrapper script sets
+    private YtDlpExtractor stub(Map<String, String> env) throws IOException {
+        StringBuilder script = new StringBuilder("#!/bin/sh\n");
+        env.forEach((name, value) -> script.append("export ").append(name).append("='").append(value).append("'\n"));
+        script.append("exec sh '").append(STUB).append("' \"$@\"\n");
+        Path wrapper = dir.resolve("yt-dlp");
+        Files.writeString(wrapper, script);
+        assertTrue(wrapper.toFile().setExecutable(true));
+        return new YtDlpExtractor(wrapper.toString());
+    }
+
+    @Test
+    void listsEveryEntryWithItsTitle() throws Exception {
+        YtDlpExtractor extractor = stub(Map.of("STUB_UNTITLED_EVERY", "7"));
+        List<PlaylistParser.Entry> entries = new ArrayList<>();
+
+        assertEquals(500, extractor.listEntries("https://www.youtube.com/playlist?list=PL1", entries::add));
+        assertEquals(500, entries.size());
+        assertEquals("https://stub.invalid/watch?v=1", entries.get(0).location());
+        assertEquals("Stub entry 1", entries.get(0).title());
+        assertEquals("https://stub.invalid/watch?v=7", entries.get(6).location());
+        assertNull(entries.get(6).title()); // yt-dlp prints NA for a missing title
+        assertEquals("Stub entry 500", entries.get(499).title());
+    }
+
+    @Test
+    void resolvesAnEntryToItsStreamUrl() throws Exception {
+        YtDlpExtractor extractor = stub(Map.of("STUB_DELAY", "0", "STUB_MEDIA", "file:///tmp/clip.mp4"));
+
+        assertEquals("file:///tmp/clip.mp4", extractor.resolveStream("https://stub.invalid/watch?v=1"));
+    }
+
+    @Test
+    void reportsAFailedResolve() throws Exception {
+        YtDlpExtractor extractor = stub(Map.of("STUB_DELAY", "0", "STUB_FAIL_EVERY", "3"));
+
+        assertEquals("file:///dev/null", extractor.resolveStream("https://stub.invalid/watch?v=2"));
+        assertThrows(IOException.class, () -> extractor.resolveStream("https://stub.invalid/watch?v=3"));
+    }
+
+    @Test
+    void recognisesCollectionUrls() {
+        YtDlpExtractor extractor = new YtDlpExtractor("yt-dlp");
+
+        assertTrue(extractor.isCollection("https://www.youtube.com/playlist?list=PL1"));
+        assertTrue(extractor.isCollection("https://www.youtube.com/watch?v=abc&list=PL1"));
+        assertTrue(extractor.isCollection("https://www.youtube.com/@handle"));
+        assertTrue(extractor.isCollection("https://www.youtube.com/channel/UC1/videos"));
+        assertTrue(extractor.isCollection("https://vimeo.com/channels/staffpicks"));
+        assertFalse(extractor.isCollection("https://www.youtube.com/watch?v=abc"));
+        assertFalse(extractor.isCollection(" https://youtu.be/abc "));
+        assertFalse(extractor.isCollection("https://m.youtube.com/shorts/abc"));
+        assertFalse(extractor.isCollection("https://www.youtube.com/watch?v=abc&playlist=x"));
+    }
+
+    // Same path as Main: the first listed entry is resolved with resolveNow()
+    // while the listing goes on and the next few are prefetched
+    @Test
+    void firstEntryPlaysAfterOneResolve() throws Exception {
+        YtDlpExtractor extractor = stub(Map.of("STUB_DELAY", "1"));
+        StreamResolver resolver = new StreamResolver(extractor, 3);
+        List<String> urls = new ArrayList<>();
+        CompletableFuture<Long> firstPlay = new CompletableFuture<>();
+        long start = System.nanoTime();
+        try {
+            extractor.listEntries("https://www.youtube.com/playlist?list=PL1", entry -> {
+                urls.add(entry.location());
+                if (urls.size() == 1) {
+                    resolver.resolveNow(entry.location()).whenComplete((url, error) -> {
+                        if (error != null) {
+                            firstPlay.completeExceptionally(error);
+                        } else {
+                            firstPlay.complete(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                        }
+                    });
+                } else if (urls.size() <= 5) {
+                    resolver.resolve(entry.location());
+                }
+            });
+            long millis = firstPlay.get(10, TimeUnit.SECONDS);
+            System.out.println("First of " + urls.size() + " stub entries resolved after " + millis + " ms");
+            assertTrue(millis < 2500, "time to first play " + millis + " ms");
+        } finally {
+            resolver.shutdown();
+        }
+    }
+}